@@ -0,0 +1,87 @@
+package oop.ex6.bench;
+
+import oop.ex6.main.BatchValidator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Measures validating a directory tree of generated files of mixed sizes with a
+ * {@link BatchValidator}, with a single validator thread and with one per processor - the
+ * throughput should scale with the cores. The allocation column only counts the thread
+ * starting the batch, not the readers and validators.
+ * Usage: BatchBenchmark [files], by default 64 files of 1k to 64k.
+ */
+public class BatchBenchmark {
+    private static final int DEFAULT_FILES = 64;
+    private static final long MIN_FILE_BYTES = 1 << 10;
+    private static final int SIZE_CLASSES = 7;
+    private static final String FILES_FORMAT = "%-48s %14.1f files/s%n";
+
+    /**
+     * Run the benchmark
+     *
+     * @param args the number of files
+     * @throws Exception if a benchmark failed unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILES;
+        Path tree = Files.createTempDirectory("batch-");
+        try {
+            for (int file = 0; file < files; file++) {
+                CorpusGenerator generator = new CorpusGenerator();
+                generator.setSeed(file);
+                generator.setTargetBytes(MIN_FILE_BYTES << (file % SIZE_CLASSES));
+                Path directory = Files.createDirectories(tree.resolve("d" + file % SIZE_CLASSES));
+                generator.generate(directory.resolve("f" + file + ".sjava"));
+            }
+            BenchmarkRunner.printHeader();
+            measure("batch validators=1 files=" + files, tree, 1, files);
+            int processors = Runtime.getRuntime().availableProcessors();
+            measure("batch validators=" + processors + " files=" + files, tree, processors, files);
+        } finally {
+            delete(tree);
+        }
+    }
+
+    /**
+     * Measure validating the tree and print the throughput in files per second
+     *
+     * @param name       the benchmark name
+     * @param tree       the directory of the files
+     * @param validators the number of validator threads
+     * @param files      the number of files in the tree
+     * @throws Exception if a file wasn't valid
+     */
+    private static void measure(String name, Path tree, int validators, int files) throws Exception {
+        BenchmarkRunner.Result result = BenchmarkRunner.run(name, () -> {
+            BatchValidator batch = new BatchValidator();
+            batch.setValidators(validators);
+            batch.add(tree.toString());
+            AtomicInteger validated = new AtomicInteger();
+            if (!batch.validate((file, fileResult) -> validated.incrementAndGet()) || validated.get() != files) {
+                throw new IllegalStateException("Unexpected batch result");
+            }
+        });
+        System.out.printf(Locale.ROOT, FILES_FORMAT, "", files * result.getOperationsPerSecond());
+    }
+
+    /**
+     * Delete a directory tree
+     *
+     * @param tree the directory
+     * @throws IOException if a file couldn't be deleted
+     */
+    private static void delete(Path tree) throws IOException {
+        try (Stream<Path> paths = Files.walk(tree)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
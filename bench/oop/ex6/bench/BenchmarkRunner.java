@@ -0,0 +1,144 @@
+package oop.ex6.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * A minimal benchmark harness. An operation is first warmed up, then run for several
+ * measured rounds of a fixed duration. The throughput, the time per operation and the
+ * bytes allocated per operation (read from the thread allocation counter, like a GC
+ * profiler does) are reported.
+ */
+public class BenchmarkRunner {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final long ROUND_NANOS = 200_000_000L;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final String HEADER_FORMAT = "%-48s %14s %14s %14s%n";
+    private static final String ROW_FORMAT = "%-48s %14.1f %14.1f %14.1f%n";
+
+    /**
+     * A single benchmarked operation
+     */
+    public interface Operation {
+        /**
+         * Run the operation once
+         *
+         * @throws Exception in case of an unexpected failure, stopping the benchmark
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * The measured result of a benchmark
+     */
+    public static class Result {
+        private final String name;
+        private final double operationsPerSecond;
+        private final double bytesPerOperation;
+
+        /**
+         * @param name                the benchmark name
+         * @param operationsPerSecond the measured throughput
+         * @param bytesPerOperation   the measured allocation per operation
+         */
+        Result(String name, double operationsPerSecond, double bytesPerOperation) {
+            this.name = name;
+            this.operationsPerSecond = operationsPerSecond;
+            this.bytesPerOperation = bytesPerOperation;
+        }
+
+        /**
+         * @return the benchmark name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of operations per second
+         */
+        public double getOperationsPerSecond() {
+            return operationsPerSecond;
+        }
+
+        /**
+         * @return the average time of a single operation, in nanoseconds
+         */
+        public double getNanosPerOperation() {
+            return NANOS_PER_SECOND / operationsPerSecond;
+        }
+
+        /**
+         * @return the bytes allocated by a single operation
+         */
+        public double getBytesPerOperation() {
+            return bytesPerOperation;
+        }
+    }
+
+    /**
+     * Print the header of the results table
+     */
+    public static void printHeader() {
+        System.out.printf(Locale.ROOT, HEADER_FORMAT, "benchmark", "ops/s", "ns/op", "B/op");
+    }
+
+    /**
+     * Benchmark an operation and print its result row
+     *
+     * @param name      the benchmark name
+     * @param operation the operation to measure
+     * @return the measured result
+     * @throws Exception if the operation failed unexpectedly
+     */
+    public static Result run(String name, Operation operation) throws Exception {
+        Result result = measure(name, operation);
+        System.out.printf(Locale.ROOT, ROW_FORMAT, name, result.getOperationsPerSecond(),
+                result.getNanosPerOperation(), result.getBytesPerOperation());
+        return result;
+    }
+
+    /**
+     * Benchmark an operation
+     *
+     * @param name      the benchmark name
+     * @param operation the operation to measure
+     * @return the measured result
+     * @throws Exception if the operation failed unexpectedly
+     */
+    public static Result measure(String name, Operation operation) throws Exception {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(operation);
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long operations = 0;
+        long nanos = 0;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            operations += runRound(operation);
+            nanos += System.nanoTime() - start;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new Result(name, operations * NANOS_PER_SECOND / nanos, (double) allocated / operations);
+    }
+
+    /**
+     * Run the operation repeatedly for a single round
+     *
+     * @param operation the operation to run
+     * @return the number of times the operation ran
+     * @throws Exception if the operation failed unexpectedly
+     */
+    private static long runRound(Operation operation) throws Exception {
+        long deadline = System.nanoTime() + ROUND_NANOS;
+        long operations = 0;
+        do {
+            operation.run();
+            operations++;
+        } while (System.nanoTime() < deadline);
+        return operations;
+    }
+}
@@ -0,0 +1,64 @@
+package oop.ex6.bench;
+
+import oop.ex6.main.Parser;
+import oop.ex6.main.ValidationCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Measures validating an unchanged file through a {@link ValidationCache}, against parsing it,
+ * on generated corpora of several sizes. A cache hit should cost about as much as hashing the file.
+ * Usage: CacheBenchmark [size...], sizes with an optional k, m or g suffix - by default
+ * 1k, 64k and 1m.
+ */
+public class CacheBenchmark {
+    private static final String[] DEFAULT_SIZES = {"1k", "64k", "1m"};
+    private static final String CACHE_DIRECTORY_PREFIX = "sjava-cache";
+
+    /**
+     * Run the benchmark
+     *
+     * @param args the file sizes to measure
+     * @throws Exception if a benchmark failed unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        String[] sizes = args.length > 0 ? args : DEFAULT_SIZES;
+        BenchmarkRunner.printHeader();
+        Path cacheDirectory = Files.createTempDirectory(CACHE_DIRECTORY_PREFIX);
+        try {
+            ValidationCache cache = new ValidationCache(cacheDirectory);
+            for (String size : sizes) {
+                CorpusGenerator generator = new CorpusGenerator();
+                generator.setTargetBytes(CorpusGenerator.parseSize(size));
+                Path source = generator.generateTemporary();
+                try {
+                    BenchmarkRunner.run("parse size=" + size, () -> Parser.validate(source));
+                    BenchmarkRunner.run("hash size=" + size, () -> ValidationCache.key(source, false));
+                    BenchmarkRunner.run("cache hit size=" + size,
+                            () -> cache.validate(source, new Parser(source.toString())));
+                } finally {
+                    Files.delete(source);
+                }
+            }
+        } finally {
+            deleteTree(cacheDirectory);
+        }
+    }
+
+    /**
+     * @param directory a directory to delete with all its content
+     * @throws IOException if deleting failed
+     */
+    private static void deleteTree(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            Path[] ordered = paths.sorted(Comparator.reverseOrder()).toArray(Path[]::new);
+            for (Path path : ordered) {
+                Files.delete(path);
+            }
+        }
+    }
+}
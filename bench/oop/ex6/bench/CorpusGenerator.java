@@ -0,0 +1,417 @@
+package oop.ex6.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Generates synthetic s-java files for benchmarks and scale tests. The output is fully
+ * determined by the seed and the knobs, so the same corpus can be regenerated on any machine.
+ * A file has global variables followed by void methods with typed and final parameters, whose
+ * bodies declare and assign variables, call methods and nest if/while blocks with ||/&&
+ * conditions, with a return before each closing brace. Every statement line can be replaced
+ * by an invalid one with a configurable probability; with a share of 0 the file is valid.
+ * The output is written as a stream, so files of any size can be generated.
+ * Usage: CorpusGenerator output [--seed n] [--size n[k|m|g]] [--methods n] [--depth n]
+ * [--globals n] [--params n] [--invalid share]
+ */
+public class CorpusGenerator {
+    private static final String[] TYPES = {"int", "double", "boolean", "char", "String"};
+    private static final int INT = 0;
+    private static final int DOUBLE = 1;
+    private static final int BOOLEAN = 2;
+    private static final int CHAR = 3;
+    private static final int STRING = 4;
+    private static final String[] CONDITION_OPERATORS = {" || ", " && "};
+    private static final String[] INVALID_LINES = {"int %s = \"text\";", "final double %s;",
+            "%s = undeclared;", "String %s = 'c';", "boolean %s = 1 +;", "itn %s = 5;"};
+    private static final String GLOBAL_PREFIX = "g";
+    private static final String PARAMETER_PREFIX = "p";
+    private static final String LOCAL_PREFIX = "l";
+    private static final String METHOD_PREFIX = "method";
+    private static final String INDENT = "    ";
+    private static final String NEW_LINE = "\n";
+    private static final int MIN_BLOCK_STATEMENTS = 2;
+    private static final int MAX_BLOCK_STATEMENTS = 5;
+    private static final int MAX_CONDITION_CLAUSES = 4;
+    private static final int COMMENT_ONE_IN = 16;
+    private static final long METHOD_SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final String USAGE = "Usage: CorpusGenerator output [--seed n] [--size n[k|m|g]] "
+            + "[--methods n] [--depth n] [--globals n] [--params n] [--invalid share]";
+
+    private long seed = 1;
+    private long targetBytes = 0;
+    private int methodCount = 10;
+    private int nestingDepth = 2;
+    private int globalsCount = 8;
+    private int parameterCount = 3;
+    private double invalidLineShare = 0;
+
+    private Random random;
+    private long writtenBytes;
+    private final ArrayList<Local> globals = new ArrayList<>();
+    private int localCounter;
+    // The variables visible while generating a method body, innermost last
+    private final ArrayList<Local> visible = new ArrayList<>();
+
+    /**
+     * A variable visible in the generated code
+     */
+    private static class Local {
+        private final String name;
+        private final int type;
+        private final boolean isFinal;
+
+        /**
+         * @param name    the variable name
+         * @param type    the index of the variable type in TYPES
+         * @param isFinal whether the variable is final
+         */
+        Local(String name, int type, boolean isFinal) {
+            this.name = name;
+            this.type = type;
+            this.isFinal = isFinal;
+        }
+    }
+
+    /**
+     * @param seed the seed of the generated corpus
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param targetBytes the size of the generated file - methods are generated until it's
+     *                    reached, ignoring the method count. 0 to use the method count.
+     */
+    public void setTargetBytes(long targetBytes) {
+        this.targetBytes = targetBytes;
+    }
+
+    /**
+     * @param methodCount the number of generated methods, when no target size is set
+     */
+    public void setMethodCount(int methodCount) {
+        this.methodCount = methodCount;
+    }
+
+    /**
+     * @param nestingDepth the depth of the nested if/while blocks in every method
+     */
+    public void setNestingDepth(int nestingDepth) {
+        this.nestingDepth = nestingDepth;
+    }
+
+    /**
+     * @param globalsCount the number of global variables
+     */
+    public void setGlobalsCount(int globalsCount) {
+        this.globalsCount = globalsCount;
+    }
+
+    /**
+     * @param parameterCount the number of parameters of every method
+     */
+    public void setParameterCount(int parameterCount) {
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * @param invalidLineShare the probability of every statement line to be invalid, between 0 and 1
+     */
+    public void setInvalidLineShare(double invalidLineShare) {
+        this.invalidLineShare = invalidLineShare;
+    }
+
+    /**
+     * Generate the corpus into a file
+     *
+     * @param path the file to write
+     * @throws IOException in case the file couldn't be written
+     */
+    public void generate(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            generate(writer);
+        }
+    }
+
+    /**
+     * Generate the corpus into a temporary file, deleted by the caller
+     *
+     * @return the generated file
+     * @throws IOException in case the file couldn't be written
+     */
+    public Path generateTemporary() throws IOException {
+        Path path = Files.createTempFile("corpus-", ".sjava");
+        generate(path);
+        return path;
+    }
+
+    /**
+     * Generate the corpus
+     *
+     * @param writer the writer to write the corpus to, not closed by this method
+     * @throws IOException in case writing failed
+     */
+    public void generate(Writer writer) throws IOException {
+        random = new Random(seed);
+        writtenBytes = 0;
+        StringBuilder chunk = new StringBuilder();
+        globals.clear();
+        for (int global = 0; global < globalsCount; global++) {
+            int type = random.nextInt(TYPES.length);
+            boolean isFinal = random.nextBoolean();
+            String name = GLOBAL_PREFIX + global;
+            statement(chunk, 0, (isFinal ? "final " : "") + TYPES[type] + " " + name + " = " + literal(type) + ";");
+            globals.add(new Local(name, type, isFinal));
+        }
+        flush(writer, chunk);
+        for (int method = 0; targetBytes > 0 ? writtenBytes < targetBytes : method < methodCount; method++) {
+            method(chunk, method);
+            flush(writer, chunk);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Write a generated chunk and clear it
+     */
+    private void flush(Writer writer, StringBuilder chunk) throws IOException {
+        writer.append(chunk);
+        writtenBytes += chunk.length();
+        chunk.setLength(0);
+    }
+
+    /**
+     * The types of the parameters of a method, derived from the seed and the method index
+     * only, so calls to any method can be generated without remembering its signature.
+     *
+     * @param method the method index
+     * @return the indexes of the parameter types in TYPES
+     */
+    private int[] parameterTypes(int method) {
+        Random methodRandom = new Random(seed ^ (method * METHOD_SEED_MULTIPLIER));
+        int[] types = new int[parameterCount];
+        for (int param = 0; param < parameterCount; param++) {
+            types[param] = methodRandom.nextInt(TYPES.length);
+        }
+        return types;
+    }
+
+    /**
+     * Generate a whole method
+     */
+    private void method(StringBuilder chunk, int method) {
+        visible.clear();
+        visible.addAll(globals);
+        localCounter = 0;
+        int[] types = parameterTypes(method);
+        StringBuilder signature = new StringBuilder("void ").append(METHOD_PREFIX).append(method).append("(");
+        for (int param = 0; param < types.length; param++) {
+            boolean isFinal = random.nextInt(3) == 0;
+            if (param > 0) {
+                signature.append(", ");
+            }
+            signature.append(isFinal ? "final " : "").append(TYPES[types[param]]).append(" ")
+                    .append(PARAMETER_PREFIX).append(param);
+            visible.add(new Local(PARAMETER_PREFIX + param, types[param], isFinal));
+        }
+        chunk.append(signature).append(") {").append(NEW_LINE);
+        block(chunk, 1, method);
+        chunk.append("}").append(NEW_LINE);
+    }
+
+    /**
+     * Generate the statements of a block, one of which is a nested block until the nesting
+     * depth is reached, followed by a return.
+     */
+    private void block(StringBuilder chunk, int depth, int method) {
+        int scopeStart = visible.size();
+        int statements = MIN_BLOCK_STATEMENTS + random.nextInt(MAX_BLOCK_STATEMENTS - MIN_BLOCK_STATEMENTS + 1);
+        int nestedAt = depth <= nestingDepth ? random.nextInt(statements) : -1;
+        for (int index = 0; index < statements; index++) {
+            if (random.nextInt(COMMENT_ONE_IN) == 0) {
+                chunk.append("// statement ").append(index).append(NEW_LINE);
+            }
+            if (index == nestedAt) {
+                String keyword = random.nextBoolean() ? "if" : "while";
+                statement(chunk, depth, keyword + " (" + condition() + ") {");
+                block(chunk, depth + 1, method);
+                indent(chunk, depth).append("}").append(NEW_LINE);
+            } else if (random.nextDouble() < invalidLineShare) {
+                String template = INVALID_LINES[random.nextInt(INVALID_LINES.length)];
+                statement(chunk, depth, String.format(template, LOCAL_PREFIX + localCounter++));
+            } else {
+                simpleStatement(chunk, depth, method);
+            }
+        }
+        statement(chunk, depth, "return;");
+        visible.subList(scopeStart, visible.size()).clear();
+    }
+
+    /**
+     * Generate a single valid declaration, assignment or method call line
+     */
+    private void simpleStatement(StringBuilder chunk, int depth, int method) {
+        int kind = random.nextInt(3);
+        if (kind == 1 && !visible.isEmpty()) {
+            Local target = visible.get(random.nextInt(visible.size()));
+            if (!target.isFinal) {
+                statement(chunk, depth, target.name + " = " + value(target.type) + ";");
+                return;
+            }
+        } else if (kind == 2) {
+            int callee = random.nextInt(method + 1);
+            int[] types = parameterTypes(callee);
+            StringBuilder call = new StringBuilder(METHOD_PREFIX).append(callee).append("(");
+            for (int param = 0; param < types.length; param++) {
+                call.append(param > 0 ? ", " : "").append(value(types[param]));
+            }
+            statement(chunk, depth, call.append(");").toString());
+            return;
+        }
+        int type = random.nextInt(TYPES.length);
+        boolean isFinal = random.nextInt(4) == 0;
+        String name = LOCAL_PREFIX + localCounter++;
+        statement(chunk, depth, (isFinal ? "final " : "") + TYPES[type] + " " + name + " = " + value(type) + ";");
+        visible.add(new Local(name, type, isFinal));
+    }
+
+    /**
+     * @return a condition of one or more clauses joined by || and &&
+     */
+    private String condition() {
+        StringBuilder condition = new StringBuilder(value(BOOLEAN));
+        int clauses = random.nextInt(MAX_CONDITION_CLAUSES);
+        for (int clause = 0; clause < clauses; clause++) {
+            condition.append(CONDITION_OPERATORS[random.nextInt(CONDITION_OPERATORS.length)])
+                    .append(value(BOOLEAN));
+        }
+        return condition.toString();
+    }
+
+    /**
+     * A value assignable to the given type - a visible variable of a compatible type, or
+     * a literal
+     *
+     * @param type the index of the assigned type in TYPES
+     * @return the value
+     */
+    private String value(int type) {
+        Local candidate = visible.isEmpty() ? null : visible.get(random.nextInt(visible.size()));
+        if (candidate != null && isAssignable(candidate.type, type)) {
+            return candidate.name;
+        }
+        return literal(type);
+    }
+
+    /**
+     * @param from the index of the type of the value
+     * @param to   the index of the type it is assigned to
+     * @return whether a value of the first type can be assigned to the second
+     */
+    private static boolean isAssignable(int from, int to) {
+        return from == to || (from == INT && to == DOUBLE)
+                || (to == BOOLEAN && (from == INT || from == DOUBLE));
+    }
+
+    /**
+     * @param type the index of the type in TYPES
+     * @return a random literal of the type
+     */
+    private String literal(int type) {
+        switch (type) {
+            case INT:
+                return Integer.toString(random.nextInt(2000) - 1000);
+            case DOUBLE:
+                return (random.nextInt(2000) - 1000) + "." + random.nextInt(100);
+            case BOOLEAN:
+                return random.nextBoolean() ? "true" : "false";
+            case CHAR:
+                return "'" + (char) ('a' + random.nextInt(26)) + "'";
+            default:
+                return "\"text " + random.nextInt(1000) + "\"";
+        }
+    }
+
+    /**
+     * Append an indented line
+     */
+    private static void statement(StringBuilder chunk, int depth, String line) {
+        indent(chunk, depth).append(line).append(NEW_LINE);
+    }
+
+    /**
+     * Append the indentation of the given depth
+     */
+    private static StringBuilder indent(StringBuilder chunk, int depth) {
+        for (int level = 0; level < depth; level++) {
+            chunk.append(INDENT);
+        }
+        return chunk;
+    }
+
+    /**
+     * Parse a size with an optional k, m or g suffix
+     *
+     * @param size the size argument
+     * @return the size in bytes
+     */
+    static long parseSize(String size) {
+        char unit = Character.toLowerCase(size.charAt(size.length() - 1));
+        int shift = unit == 'k' ? 10 : unit == 'm' ? 20 : unit == 'g' ? 30 : 0;
+        String number = shift == 0 ? size : size.substring(0, size.length() - 1);
+        return Long.parseLong(number) << shift;
+    }
+
+    /**
+     * Generate a corpus file from the command line
+     *
+     * @param args the output file followed by the knobs
+     * @throws IOException in case the file couldn't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length % 2 == 0) {
+            System.err.println(USAGE);
+            return;
+        }
+        CorpusGenerator generator = new CorpusGenerator();
+        for (int option = 1; option < args.length; option += 2) {
+            String value = args[option + 1];
+            switch (args[option]) {
+                case "--seed":
+                    generator.setSeed(Long.parseLong(value));
+                    break;
+                case "--size":
+                    generator.setTargetBytes(parseSize(value));
+                    break;
+                case "--methods":
+                    generator.setMethodCount(Integer.parseInt(value));
+                    break;
+                case "--depth":
+                    generator.setNestingDepth(Integer.parseInt(value));
+                    break;
+                case "--globals":
+                    generator.setGlobalsCount(Integer.parseInt(value));
+                    break;
+                case "--params":
+                    generator.setParameterCount(Integer.parseInt(value));
+                    break;
+                case "--invalid":
+                    generator.setInvalidLineShare(Double.parseDouble(value));
+                    break;
+                default:
+                    System.err.println(USAGE);
+                    return;
+            }
+        }
+        generator.generate(Paths.get(args[0]));
+    }
+}
@@ -0,0 +1,55 @@
+package oop.ex6.bench;
+
+import oop.ex6.main.Parser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures parsing a file with the serial and the parallel second pass, on generated corpora
+ * of several sizes. The parallel pass should scale with the number of cores on files with many
+ * methods, and cost nothing on files below its threshold.
+ * Usage: ParallelBenchmark [size...], sizes with an optional k, m or g suffix - by default
+ * 64k, 1m and 16m.
+ */
+public class ParallelBenchmark {
+    private static final String[] DEFAULT_SIZES = {"64k", "1m", "16m"};
+
+    /**
+     * Run the benchmark
+     *
+     * @param args the file sizes to measure
+     * @throws Exception if a benchmark failed unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        String[] sizes = args.length > 0 ? args : DEFAULT_SIZES;
+        BenchmarkRunner.printHeader();
+        for (String size : sizes) {
+            CorpusGenerator generator = new CorpusGenerator();
+            generator.setTargetBytes(CorpusGenerator.parseSize(size));
+            Path source = generator.generateTemporary();
+            try {
+                measure("parse serial size=" + size, source, false);
+                measure("parse parallel size=" + size, source, true);
+            } finally {
+                Files.delete(source);
+            }
+        }
+    }
+
+    /**
+     * Measure parsing a file
+     *
+     * @param name     the benchmark name
+     * @param source   the parsed file
+     * @param parallel whether to verify the methods in parallel
+     * @throws Exception if parsing failed
+     */
+    private static void measure(String name, Path source, boolean parallel) throws Exception {
+        BenchmarkRunner.run(name, () -> {
+            Parser parser = new Parser(source.toString());
+            parser.setParallel(parallel);
+            parser.parse();
+        });
+    }
+}
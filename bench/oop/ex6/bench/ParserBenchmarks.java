@@ -0,0 +1,328 @@
+package oop.ex6.bench;
+
+import oop.ex6.conditions.ConditionBlocksParser;
+import oop.ex6.lexer.Lexer;
+import oop.ex6.lexer.SymbolTable;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
+import oop.ex6.main.Parser;
+import oop.ex6.main.ParserException;
+import oop.ex6.methods.MethodCall;
+import oop.ex6.methods.MethodSignature;
+import oop.ex6.methods.MethodTable;
+import oop.ex6.variables.Type;
+import oop.ex6.variables.Variable;
+import oop.ex6.variables.VariableParser;
+import oop.ex6.variables.VariableScope;
+import oop.ex6.variables.VariableVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * The benchmark suite of the parser hot paths. Every component is measured on valid and
+ * invalid inputs of several sizes - in the invalid inputs the error is always at the very
+ * end, so the whole input is processed before it is rejected.
+ * Run with an optional argument to only run the benchmarks whose name contains it, e.g.
+ * {@code java oop.ex6.bench.ParserBenchmarks conditions}.
+ */
+public class ParserBenchmarks {
+    // the number of items (declarations, variables) in a single line
+    private static final int[] LINE_SIZES = {1, 16, 256};
+    // the number of parameters of a signature or a call
+    private static final int[] PARAMETER_SIZES = {1, 100, 1000};
+    // the number of clauses of a condition
+    private static final int[] CONDITION_SIZES = {1, 10, 100, 1000};
+    // the number of digits of a verified literal
+    private static final int[] LITERAL_SIZES = {1, 16, 256};
+    // the size in bytes of a parsed file
+    private static final long[] FILE_SIZES = {1L << 10, 1L << 16, 1L << 20};
+    // appended to a generated file to make it invalid only at its very last method
+    private static final String INVALID_METHOD = "void invalid() {\nint bad = \"text\";\nreturn;\n}\n";
+    private static final String INT_TYPE = "int";
+    private static final String INITIALIZED_INT = "i";
+    private static final String INITIALIZED_BOOLEAN = "b";
+    private static final String BAD_VALUE = "\"bad\"";
+    private static final String CALLED_METHOD = "callee";
+    private static final String VALID = "valid";
+    private static final String INVALID = "invalid";
+
+    // the names of the variables built by the benchmarks and the ones in the parsed lines
+    private static final SymbolTable SYMBOLS = new SymbolTable();
+
+    private static String filter = "";
+
+    /**
+     * Run the suite
+     *
+     * @param args an optional filter on the benchmark names
+     * @throws Exception if a benchmark failed unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            filter = args[0];
+        }
+        BenchmarkRunner.printHeader();
+        for (long size : FILE_SIZES) {
+            benchmarkParse(size, true);
+            benchmarkParse(size, false);
+        }
+        for (int size : LINE_SIZES) {
+            benchmarkVariablesLine(size, true);
+            benchmarkVariablesLine(size, false);
+        }
+        for (int size : LITERAL_SIZES) {
+            benchmarkVariableUsage(size, true);
+            benchmarkVariableUsage(size, false);
+        }
+        for (int size : PARAMETER_SIZES) {
+            benchmarkMethodCall(size, true);
+            benchmarkMethodCall(size, false);
+        }
+        for (int size : PARAMETER_SIZES) {
+            benchmarkParameters(size, true);
+            benchmarkParameters(size, false);
+        }
+        for (int size : CONDITION_SIZES) {
+            benchmarkConditions(size, true);
+            benchmarkConditions(size, false);
+        }
+        for (int size : LINE_SIZES) {
+            benchmarkAddParameters(size);
+            benchmarkCloneScope(size);
+        }
+    }
+
+    /**
+     * Run a benchmark if its name passes the filter
+     *
+     * @param name      the benchmark name
+     * @param operation the measured operation
+     * @throws Exception if the operation failed unexpectedly
+     */
+    private static void run(String name, BenchmarkRunner.Operation operation) throws Exception {
+        if (name.contains(filter)) {
+            BenchmarkRunner.run(name, operation);
+        }
+    }
+
+    /**
+     * @param group the benchmarked component
+     * @param size  the input size
+     * @param valid whether the input is valid
+     * @return the benchmark name
+     */
+    private static String name(String group, long size, boolean valid) {
+        return group + " " + (valid ? VALID : INVALID) + " size=" + size;
+    }
+
+    /**
+     * Run an operation that should fail on an invalid input, and fail on a valid one
+     *
+     * @param operation the operation to run
+     * @param valid     whether the input is valid
+     * @throws Exception if the operation didn't behave as expected
+     */
+    private static void expect(BenchmarkRunner.Operation operation, boolean valid) throws Exception {
+        try {
+            operation.run();
+        } catch (ParserException parserException) {
+            if (valid) {
+                throw parserException;
+            }
+            return;
+        }
+        if (!valid) {
+            throw new IllegalStateException("Invalid input was accepted");
+        }
+    }
+
+    /**
+     * Tokenize a single line
+     *
+     * @param line the line
+     * @return its tokens
+     */
+    private static TokenStream tokenize(String line) {
+        TokenStream tokens = new TokenStream(SYMBOLS);
+        Lexer.tokenize(line, tokens);
+        return tokens;
+    }
+
+    /**
+     * @return a scope with an initialized int and an initialized boolean variable
+     */
+    private static VariableScope initializedScope() {
+        VariableScope scope = new VariableScope();
+        Variable integer = new Variable(Type.INT, SYMBOLS.intern(INITIALIZED_INT), false);
+        integer.setInitialized();
+        scope.addVariable(integer);
+        Variable bool = new Variable(Type.BOOLEAN, SYMBOLS.intern(INITIALIZED_BOOLEAN), false);
+        bool.setInitialized();
+        scope.addVariable(bool);
+        return scope;
+    }
+
+    /**
+     * End to end parsing of a generated file of the given size in bytes
+     */
+    private static void benchmarkParse(long size, boolean valid) throws Exception {
+        String name = name("parse", size, valid);
+        if (!name.contains(filter)) {
+            return;
+        }
+        CorpusGenerator generator = new CorpusGenerator();
+        generator.setTargetBytes(size);
+        Path source = generator.generateTemporary();
+        if (!valid) {
+            Files.write(source, INVALID_METHOD.getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+        }
+        try {
+            run(name, () -> expect(() -> Parser.parse(source), valid));
+            run(name("validate", size, valid), () -> {
+                if (Parser.validate(source).isValid() != valid) {
+                    throw new IllegalStateException("Unexpected validation result");
+                }
+            });
+            String text = new String(Files.readAllBytes(source), StandardCharsets.US_ASCII);
+            run(name("validate in memory", size, valid), () -> {
+                if (Parser.validate(text).isValid() != valid) {
+                    throw new IllegalStateException("Unexpected validation result");
+                }
+            });
+        } finally {
+            Files.delete(source);
+        }
+    }
+
+    /**
+     * A declaration line of the given number of variables, each initialized from the previous
+     */
+    private static void benchmarkVariablesLine(int size, boolean valid) throws Exception {
+        StringBuilder line = new StringBuilder(INT_TYPE).append(" v0 = ").append(INITIALIZED_INT);
+        for (int variable = 1; variable < size; variable++) {
+            line.append(", v").append(variable).append(" = v").append(variable - 1);
+        }
+        line.append(", last = ").append(valid ? "5" : BAD_VALUE).append(";");
+        TokenStream tokens = tokenize(line.toString());
+        VariableScope enclosing = initializedScope();
+        VariableVerifier verifier = new VariableVerifier(enclosing);
+        run(name("variables line", size, valid), () -> {
+            VariableScope scope = new VariableScope(enclosing);
+            verifier.updateScope(scope);
+            try {
+                expect(() -> VariableParser.parseVariablesLine(tokens, verifier, scope), valid);
+            } finally {
+                scope.exitTo(enclosing);
+            }
+        });
+    }
+
+    /**
+     * Verifying a literal of the given number of digits against a type
+     */
+    private static void benchmarkVariableUsage(int digits, boolean valid) throws Exception {
+        TokenStream literal = tokenize("1".repeat(digits) + ".5");
+        VariableVerifier verifier = new VariableVerifier(initializedScope());
+        Type type = valid ? Type.DOUBLE : Type.INT;
+        run(name("variable usage", digits, valid), () -> expect(() -> verifier.verifyVariableUsage(type, literal,
+                0), valid));
+    }
+
+    /**
+     * A call to a method with the given number of parameters
+     */
+    private static void benchmarkMethodCall(int size, boolean valid) throws Exception {
+        MethodSignature signatures = new MethodSignature();
+        signatures.isMethodSignatureLegal(tokenize(signatureLine(CALLED_METHOD, size, false)));
+        StringBuilder call = new StringBuilder(CALLED_METHOD).append("(");
+        for (int param = 0; param < size - 1; param++) {
+            call.append(param % 2 == 0 ? INITIALIZED_INT : "7").append(", ");
+        }
+        call.append(valid ? INITIALIZED_INT : BAD_VALUE).append(");");
+        TokenStream tokens = tokenize(call.toString());
+        VariableVerifier verifier = new VariableVerifier(initializedScope());
+        MethodTable methods = signatures.table();
+        run(name("method call", size, valid), () -> expect(() -> MethodCall.handleMethodCall(tokens, verifier,
+                methods), valid));
+    }
+
+    /**
+     * A method signature with the given number of parameters, whose list is checked by
+     * ParseParameters.checkParamsValidity
+     */
+    private static void benchmarkParameters(int size, boolean valid) throws Exception {
+        TokenStream tokens = tokenize(signatureLine(CALLED_METHOD, size, !valid));
+        MethodSignature signatures = new MethodSignature();
+        run(name("parameters", size, valid), () -> expect(() -> signatures.isMethodSignatureLegal(tokens),
+                valid));
+    }
+
+    /**
+     * @param methodName   the declared method
+     * @param size         the number of parameters
+     * @param missingName  whether the last parameter is missing its name, making it invalid
+     * @return the signature line
+     */
+    private static String signatureLine(String methodName, int size, boolean missingName) {
+        StringBuilder line = new StringBuilder("void ").append(methodName).append("(");
+        for (int param = 0; param < size; param++) {
+            if (param > 0) {
+                line.append(", ");
+            }
+            line.append(param % 3 == 0 ? "final " : "").append(INT_TYPE);
+            if (!missingName || param < size - 1) {
+                line.append(" p").append(param);
+            }
+        }
+        return line.append(") {").toString();
+    }
+
+    /**
+     * An if condition of the given number of clauses
+     */
+    private static void benchmarkConditions(int size, boolean valid) throws Exception {
+        StringBuilder line = new StringBuilder("if (");
+        for (int clause = 0; clause < size - 1; clause++) {
+            line.append(clause % 2 == 0 ? INITIALIZED_BOOLEAN + " || " : "true && ");
+        }
+        line.append(valid ? INITIALIZED_INT : BAD_VALUE).append(") {");
+        TokenStream tokens = tokenize(line.toString());
+        VariableVerifier verifier = new VariableVerifier(initializedScope());
+        run(name("conditions", size, valid), () -> expect(() -> ConditionBlocksParser.handleConditions(tokens,
+                verifier, TokenType.IF), valid));
+    }
+
+    /**
+     * Declaring parameters of the given count in the frame a method body starts in, the way
+     * the parser enters a method
+     */
+    private static void benchmarkAddParameters(int size) throws Exception {
+        ArrayList<Variable> params = new ArrayList<>();
+        for (int param = 0; param < size; param++) {
+            params.add(new Variable(Type.INT, SYMBOLS.intern("p" + param), false));
+        }
+        VariableScope globals = initializedScope();
+        run("scope parameters size=" + size, () -> {
+            VariableScope methodScope = new VariableScope(globals);
+            methodScope.addParameters(params);
+            methodScope.exitTo(globals);
+        });
+    }
+
+    /**
+     * Copying globals of the given count into the root of a method, reusing the index of the
+     * previous method's root the way the parser does
+     */
+    private static void benchmarkCloneScope(int size) throws Exception {
+        VariableScope scope = new VariableScope();
+        for (int variable = 0; variable < size; variable++) {
+            scope.addVariable(new Variable(Type.INT, SYMBOLS.intern("v" + variable), false));
+        }
+        VariableScope[] methodRoot = new VariableScope[1];
+        run("scope clone size=" + size, () -> methodRoot[0] = scope.cloneReusing(methodRoot[0]));
+    }
+}
@@ -0,0 +1,87 @@
+package oop.ex6.bench;
+
+import oop.ex6.main.Parser;
+import oop.ex6.source.AsciiSourceLines;
+import oop.ex6.source.ReadSourceLines;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Measures how parsing scales with the file size, on generated corpora of the same seed and
+ * shape, in both the reading and the memory mapped input modes, and in the single pass mode.
+ * Reading the lines alone is also measured, as bytes and decoded into strings.
+ * Usage: ScalingBenchmark [size...], sizes with an optional k, m or g suffix - by default
+ * 1k and 1m. A 1g run takes a few minutes and, in the reading mode, a large heap.
+ */
+public class ScalingBenchmark {
+    private static final String[] DEFAULT_SIZES = {"1k", "1m"};
+    private static final double BYTES_PER_MEGABYTE = 1 << 20;
+    private static final String THROUGHPUT_FORMAT = "%-48s %14.1f MB/s%n";
+
+    /**
+     * Run the benchmark
+     *
+     * @param args the file sizes to measure
+     * @throws Exception if a benchmark failed unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        String[] sizes = args.length > 0 ? args : DEFAULT_SIZES;
+        BenchmarkRunner.printHeader();
+        for (String size : sizes) {
+            CorpusGenerator generator = new CorpusGenerator();
+            generator.setTargetBytes(CorpusGenerator.parseSize(size));
+            Path source = generator.generateTemporary();
+            try {
+                long bytes = Files.size(source);
+                measureLines("lines ascii size=" + size, bytes,
+                        () -> AsciiSourceLines.read(source).lineCount());
+                measureLines("lines decoded size=" + size, bytes,
+                        () -> new ReadSourceLines(source.toString()).lineCount());
+                measure("parse read size=" + size, source, false, false, bytes);
+                measure("parse mmap size=" + size, source, true, false, bytes);
+                measure("parse single pass size=" + size, source, false, true, bytes);
+            } finally {
+                Files.delete(source);
+            }
+        }
+    }
+
+    /**
+     * Measure reading the lines of a file and print the throughput in megabytes per second
+     *
+     * @param name      the benchmark name
+     * @param bytes     the file size
+     * @param operation reads the lines
+     * @throws Exception if reading failed
+     */
+    private static void measureLines(String name, long bytes, BenchmarkRunner.Operation operation)
+            throws Exception {
+        BenchmarkRunner.Result result = BenchmarkRunner.run(name, operation);
+        System.out.printf(Locale.ROOT, THROUGHPUT_FORMAT, "",
+                bytes / BYTES_PER_MEGABYTE * result.getOperationsPerSecond());
+    }
+
+    /**
+     * Measure parsing a file and print the throughput in megabytes per second
+     *
+     * @param name         the benchmark name
+     * @param source       the parsed file
+     * @param memoryMapped whether to parse in the memory mapped mode
+     * @param singlePass   whether to parse in the single pass mode
+     * @param bytes        the file size
+     * @throws Exception if parsing failed
+     */
+    private static void measure(String name, Path source, boolean memoryMapped, boolean singlePass, long bytes)
+            throws Exception {
+        BenchmarkRunner.Result result = BenchmarkRunner.run(name, () -> {
+            Parser parser = new Parser(source.toString());
+            parser.setMemoryMapped(memoryMapped);
+            parser.setSinglePass(singlePass);
+            parser.parse();
+        });
+        System.out.printf(Locale.ROOT, THROUGHPUT_FORMAT, "",
+                bytes / BYTES_PER_MEGABYTE * result.getOperationsPerSecond());
+    }
+}
@@ -0,0 +1,114 @@
+package oop.ex6.bench;
+
+import oop.ex6.main.Parser;
+import oop.ex6.variables.Type;
+import oop.ex6.variables.Variable;
+import oop.ex6.variables.VariableScope;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Measures how the cost of scopes grows with the nesting depth. Every nested block
+ * declares a variable initialized from the variables of the enclosing blocks, so both
+ * entering/exiting scopes and looking variables up through the whole chain are exercised.
+ * The time per nesting level is expected to stay flat from depth 1 to depth 10000.
+ */
+public class ScopeDepthBenchmark {
+    private static final int[] DEPTHS = {1, 10, 100, 1000, 10000};
+    private static final String FILE_PREFIX = "scope-depth-";
+    private static final String FILE_SUFFIX = ".sjava";
+    private static final String PER_LEVEL_FORMAT = "%-48s %14.1f ns/level%n";
+    // the symbol id of the global variable, the variable of every level numbered after it
+    private static final int GLOBAL_SYMBOL = 0;
+
+    /**
+     * Run the benchmark
+     *
+     * @param args unused
+     * @throws Exception if a benchmark failed unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner.printHeader();
+        for (int depth : DEPTHS) {
+            Path source = writeNestedSource(depth);
+            try {
+                BenchmarkRunner.Result result =
+                        BenchmarkRunner.run("parse nested blocks depth=" + depth, () -> Parser.parse(source));
+                printPerLevel(result, depth);
+            } finally {
+                Files.delete(source);
+            }
+        }
+        for (int depth : DEPTHS) {
+            BenchmarkRunner.Result result =
+                    BenchmarkRunner.run("scope chain depth=" + depth, () -> walkScopeChain(depth));
+            printPerLevel(result, depth);
+        }
+    }
+
+    /**
+     * Print the time a result spent on every nesting level
+     *
+     * @param result the measured result
+     * @param depth  the nesting depth it was measured at
+     */
+    private static void printPerLevel(BenchmarkRunner.Result result, int depth) {
+        System.out.printf(Locale.ROOT, PER_LEVEL_FORMAT, "", result.getNanosPerOperation() / depth);
+    }
+
+    /**
+     * Enter depth nested scopes, declaring a variable in every one of them and looking up the
+     * outermost and the previous level's variables, then exit them all.
+     *
+     * @param depth the number of nested scopes
+     */
+    private static void walkScopeChain(int depth) {
+        VariableScope globals = new VariableScope();
+        globals.addVariable(new Variable(Type.INT, GLOBAL_SYMBOL, false));
+        VariableScope[] enclosing = new VariableScope[depth];
+        VariableScope current = new VariableScope(globals);
+        for (int level = 0; level < depth; level++) {
+            enclosing[level] = current;
+            current = new VariableScope(current);
+            if (current.findVariable(GLOBAL_SYMBOL) == null || current.findVariable(level) == null) {
+                throw new IllegalStateException("Variable not visible at level " + level);
+            }
+            current.addVariable(new Variable(Type.INT, level + 1, false));
+        }
+        for (int level = depth - 1; level >= 0; level--) {
+            current = current.exitTo(enclosing[level]);
+        }
+    }
+
+    /**
+     * Write a source file with a single method whose body nests depth blocks
+     *
+     * @param depth the number of nested blocks
+     * @return the path of the written file
+     * @throws IOException if the file couldn't be written
+     */
+    static Path writeNestedSource(int depth) throws IOException {
+        StringBuilder source = new StringBuilder();
+        source.append("int g = 1;\n");
+        source.append("void nested(boolean p) {\n");
+        source.append("int v = g;\n");
+        for (int level = 0; level < depth; level++) {
+            source.append("if (p || true) {\n");
+            source.append("int v").append(level).append(" = ").append(level == 0 ? "v" : "v" + (level - 1))
+                    .append(";\n");
+            source.append("g = v").append(level).append(";\n");
+        }
+        for (int level = 0; level < depth; level++) {
+            source.append("}\n");
+        }
+        source.append("return;\n");
+        source.append("}\n");
+        Path path = Files.createTempFile(FILE_PREFIX + depth + "-", FILE_SUFFIX);
+        Files.write(path, source.toString().getBytes(StandardCharsets.US_ASCII));
+        return path;
+    }
+}
@@ -0,0 +1,113 @@
+package oop.ex6.bench;
+
+import oop.ex6.main.ValidationResult;
+import oop.ex6.main.ValidationSession;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures validating a document in a session after an edit, on generated corpora of several
+ * sizes. An edit inside a method body should cost about the same for every file size, while
+ * an edit of a method signature revalidates the whole file.
+ * Usage: SessionBenchmark [size...], sizes with an optional k, m or g suffix - by default
+ * 64k and 1m.
+ */
+public class SessionBenchmark {
+    private static final String[] DEFAULT_SIZES = {"64k", "1m"};
+    private static final String METHOD_START = "void ";
+    private static final String EDITED_LINE = "int sessionEdit = ";
+    private static final String EDITED_LINE_END = ";";
+    private static final String SIGNATURE_PADDING = " ";
+
+    private static int editCount;
+
+    /**
+     * Run the benchmark
+     *
+     * @param args the file sizes to measure
+     * @throws Exception if a benchmark failed unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        String[] sizes = args.length > 0 ? args : DEFAULT_SIZES;
+        BenchmarkRunner.printHeader();
+        for (String size : sizes) {
+            CorpusGenerator generator = new CorpusGenerator();
+            generator.setTargetBytes(CorpusGenerator.parseSize(size));
+            Path source = generator.generateTemporary();
+            try {
+                List<String> lines = Files.readAllLines(source);
+                benchmarkBodyEdit(size, lines);
+                benchmarkSignatureEdit(size, lines);
+            } finally {
+                Files.delete(source);
+            }
+        }
+    }
+
+    /**
+     * Measure validating after replacing a line in the body of a method in the middle of the file,
+     * every time with a different line so no cached result is reused
+     *
+     * @param size  the file size name
+     * @param lines the file lines
+     * @throws Exception if the edited file isn't valid
+     */
+    private static void benchmarkBodyEdit(String size, List<String> lines) throws Exception {
+        ValidationSession session = new ValidationSession(lines);
+        int edited = methodInMiddle(lines) + 1;
+        session.replaceLines(edited, edited, Collections.singletonList(EDITED_LINE + editCount + EDITED_LINE_END));
+        expectValid(session.validate());
+        BenchmarkRunner.run("session body edit size=" + size, () -> {
+            editCount++;
+            session.replaceLines(edited, edited + 1,
+                    Collections.singletonList(EDITED_LINE + editCount + EDITED_LINE_END));
+            expectValid(session.validate());
+        });
+    }
+
+    /**
+     * Measure validating after changing the signature of a method in the middle of the file,
+     * which runs the first pass again and verifies every method
+     *
+     * @param size  the file size name
+     * @param lines the file lines
+     * @throws Exception if the edited file isn't valid
+     */
+    private static void benchmarkSignatureEdit(String size, List<String> lines) throws Exception {
+        ValidationSession session = new ValidationSession(lines);
+        int edited = methodInMiddle(lines);
+        String signature = lines.get(edited);
+        BenchmarkRunner.run("session signature edit size=" + size, () -> {
+            editCount++;
+            String padding = editCount % 2 == 0 ? "" : SIGNATURE_PADDING;
+            session.replaceLines(edited, edited + 1, Collections.singletonList(signature + padding));
+            expectValid(session.validate());
+        });
+    }
+
+    /**
+     * @param lines the file lines
+     * @return the index of the first method signature in the second half of the file
+     */
+    private static int methodInMiddle(List<String> lines) {
+        for (int index = lines.size() / 2; index < lines.size(); index++) {
+            if (lines.get(index).startsWith(METHOD_START)) {
+                return index;
+            }
+        }
+        throw new IllegalStateException("No method in the second half of the file");
+    }
+
+    /**
+     * @param result a validation result
+     * @throws Exception the error, if the result isn't valid
+     */
+    private static void expectValid(ValidationResult result) throws Exception {
+        if (!result.isValid()) {
+            throw result.getError();
+        }
+    }
+}
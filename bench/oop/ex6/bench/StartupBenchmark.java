@@ -0,0 +1,127 @@
+package oop.ex6.bench;
+
+import oop.ex6.main.Sjavac;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the time to a verdict of a one shot {@link Sjavac} run on a tiny file - starting a
+ * JVM, loading and initializing the parser classes and validating the file - in fresh
+ * processes, on the same class path as this benchmark. Also counts the classes a run loads
+ * outside of the JDK class data sharing archive, the class loading and initializing work that
+ * lands on every run, split between the parser classes and the JDK classes they pull in.
+ * Usage: StartupBenchmark [runs], by default 20.
+ */
+public class StartupBenchmark {
+    private static final int DEFAULT_RUNS = 20;
+    private static final int WARMUP_RUNS = 2;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final String VALID_VERDICT = "0";
+    private static final String CLASS_LOAD_LOG = "-Xlog:class+load=info";
+    private static final String CLASS_LOAD_TAG = "[class,load]";
+    private static final String SHARED_SOURCE = "shared objects file";
+    private static final String PARSER_PACKAGE = " oop.ex6.";
+    private static final String HEADER_FORMAT = "%-48s %14s %14s %14s%n";
+    private static final String ROW_FORMAT = "%-48s %14.1f %14.1f %14.1f%n";
+    private static final String COUNT_FORMAT = "%-48s %14d%n";
+    private static final List<String> TINY_FILE = Arrays.asList(
+            "int g0 = 5;",
+            "void method0(int p0) {",
+            "    if (p0 || true) {",
+            "        g0 = p0;",
+            "    }",
+            "    return;",
+            "}");
+
+    /**
+     * Run the benchmark
+     *
+     * @param args the number of measured runs
+     * @throws Exception if a run failed unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS;
+        Path file = Files.createTempFile("sjava-startup", ".sjava");
+        try {
+            Files.write(file, TINY_FILE, StandardCharsets.UTF_8);
+            for (int run = 0; run < WARMUP_RUNS; run++) {
+                runSjavac(file, false);
+            }
+            long[] nanos = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long start = System.nanoTime();
+                runSjavac(file, false);
+                nanos[run] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            System.out.printf(Locale.ROOT, HEADER_FORMAT, "benchmark", "min ms", "median ms", "max ms");
+            System.out.printf(Locale.ROOT, ROW_FORMAT, "time to verdict runs=" + runs, nanos[0] / NANOS_PER_MILLI,
+                    nanos[runs / 2] / NANOS_PER_MILLI, nanos[runs - 1] / NANOS_PER_MILLI);
+            int parserClasses = 0;
+            int jdkClasses = 0;
+            for (String line : runSjavac(file, true)) {
+                if (line.contains(CLASS_LOAD_TAG) && !line.contains(SHARED_SOURCE)) {
+                    if (line.contains(PARSER_PACKAGE)) {
+                        parserClasses++;
+                    } else {
+                        jdkClasses++;
+                    }
+                }
+            }
+            System.out.printf(Locale.ROOT, COUNT_FORMAT, "parser classes loaded", parserClasses);
+            System.out.printf(Locale.ROOT, COUNT_FORMAT, "jdk classes loaded outside the archive", jdkClasses);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Validate a file in a fresh JVM, checking the verdict
+     *
+     * @param file       the file to validate
+     * @param logClasses whether to log the loaded classes
+     * @return the lines the run printed to stdout
+     * @throws IOException          if the run couldn't start, or the file wasn't found valid
+     * @throws InterruptedException if interrupted while waiting for the run
+     */
+    private static List<String> runSjavac(Path file, boolean logClasses) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (logClasses) {
+            command.add(CLASS_LOAD_LOG);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Sjavac.class.getName());
+        command.add(file.toString());
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        List<String> lines = new ArrayList<>();
+        String verdict = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                // the class loading log shares stdout with the verdict
+                if (!line.contains(CLASS_LOAD_TAG)) {
+                    verdict = line;
+                }
+            }
+        }
+        process.waitFor();
+        if (!VALID_VERDICT.equals(verdict)) {
+            throw new IOException("Unexpected verdict: " + verdict);
+        }
+        return lines;
+    }
+}
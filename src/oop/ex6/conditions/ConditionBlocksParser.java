@@ -1,121 +1,98 @@
 package oop.ex6.conditions;
 
-import oop.ex6.main.CommonPatterns;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
 import oop.ex6.variables.BaseVariableException;
+import oop.ex6.variables.Type;
 import oop.ex6.variables.VariableVerifier;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
- * class that parses the condition statement (if or while)
+ * class that parses the condition statement (if or while). The statement is scanned by the
+ * index of its tokens, with no state kept between the clauses, so checking it allocates nothing.
  */
 public class ConditionBlocksParser {
     //------private fields--------//
-    private static final String DOUBLE_PATTERN = "(([+\\-]((\\d+\\.?\\d*)|(\\d*\\.?\\d+)))|((\\d+\\.?\\d*)|" +
-            "(\\d*\\.?\\d+)))";
-    private static final String BOOLEAN_PATTERN = "((true|false|" + DOUBLE_PATTERN + "))";
-
-    private static final String CONDITION =
-            "(?<value>" + BOOLEAN_PATTERN + "|" + CommonPatterns.VALID_NAME + ")";
-    private static final String OR_AND = "(^(\\s*(\\|\\|)\\s*|\\s*(&&)\\s*))";
-    private static final String END_OF_STATEMENT = "^(\\s*[)]\\s*[{]\\s*$)";
-    private static final String BOOLEAN_TYPE = "boolean";
-    private static final Pattern endPattern = Pattern.compile(END_OF_STATEMENT);
     private static final String ERROR_MSG = "Invalid statements";
-    private static final Pattern conditionPattern = Pattern.compile(CONDITION);
-    private static final Pattern andOr = Pattern.compile(OR_AND);
-    private static String conditions;
-
+    private static final int CONDITIONS_START = 2;
+    // the tokens after the last condition - ' ) { '
+    private static final int END_LENGTH = 2;
 
     /**
-     * for a condition statement ( if/while) check if the condition statements is valid
+     * check whether the line starts a condition statement - the keyword followed by a left parenthesis
      *
-     * @param line         a string of the condition statement
-     * @param verifier     variable verifier - help to check variable validity
-     * @param startPattern the start of the pattern of the statements (if or while)
-     * @throws ConditionException in case of invalidity throws condition exception
+     * @param tokens  the tokens of the line
+     * @param keyword the keyword of the statement (if or while)
+     * @return true if the line starts as the statement, false otherwise
      */
-    public static void handleConditions(String line, VariableVerifier verifier, Pattern startPattern)
-            throws ConditionException {
-        Matcher startMatcher = startPattern.matcher(line);
-
-        if (!startMatcher.find()) {
-            throw new ConditionException(ERROR_MSG);
-        } else {
-            conditions = line.substring(startMatcher.end());
-            parseConditionOp(verifier);
-        }
+    static boolean isStatementStart(TokenStream tokens, TokenType keyword) {
+        return tokens.type(0) == keyword && tokens.type(1) == TokenType.LEFT_PARENTHESIS;
     }
 
     /**
-     * check the validity of a single condition in the conditions statements
+     * for a condition statement ( if/while) check if the condition statements is valid - conditions
+     * separated by || or &&, followed by ' ) { '
      *
-     * @param verifier verify the variable usage - type
+     * @param tokens   the tokens of the condition statement
+     * @param verifier variable verifier - help to check variable validity
+     * @param keyword  the keyword the statement starts with (if or while)
      * @throws ConditionException in case of invalidity throws condition exception
      */
-    private static void parseConditionOp(VariableVerifier verifier) throws ConditionException {
-        if (!handleCondition(verifier)) {
+    public static void handleConditions(TokenStream tokens, VariableVerifier verifier, TokenType keyword)
+            throws ConditionException {
+        if (!isStatementStart(tokens, keyword)) {
             throw new ConditionException(ERROR_MSG);
         }
-        while (handleOperatorCondition()) {
-            if (!handleCondition(verifier)) {
-                throw new ConditionException(ERROR_MSG);
-            }
+        int index = handleCondition(tokens, verifier, CONDITIONS_START);
+        while (isOperator(tokens.type(index))) {
+            index = handleCondition(tokens, verifier, index + 1);
         }
-        handleEnd();
+        handleEnd(tokens, index);
     }
 
     /**
      * check the validity of the end of the line - ' ) { '
      *
+     * @param tokens the tokens of the condition statement
+     * @param index  the index of the token after the last condition
      * @throws ConditionException in case of invalidity throws condition exception
      */
-    private static void handleEnd() throws ConditionException {
-        Matcher endMatcher = endPattern.matcher(conditions);
-        if (!endMatcher.find()) {
-            throw new ConditionException(ERROR_MSG);
-        }
-        conditions = conditions.substring(endMatcher.end()).strip();
-        if (!conditions.equals(CommonPatterns.EMPTY_STRING)) {
+    private static void handleEnd(TokenStream tokens, int index) throws ConditionException {
+        if (tokens.type(index) != TokenType.RIGHT_PARENTHESIS || tokens.type(index + 1) != TokenType.LEFT_BRACE
+                || tokens.size() != index + END_LENGTH) {
             throw new ConditionException(ERROR_MSG);
         }
     }
 
     /**
-     * check for the validity of condition
+     * check for the validity of a single condition - a boolean literal or variable
      *
+     * @param tokens   the tokens of the condition statement
      * @param verifier variable verifier - help to check variable validity
-     * @return true if the current condition is valid, false otherwise
+     * @param index    the index of the token the condition should be at
+     * @return the index of the token after the condition
      * @throws ConditionException in case of invalidity throws condition exception
      */
-    private static boolean handleCondition(VariableVerifier verifier) throws ConditionException {
-        Matcher conditionMatcher = conditionPattern.matcher(conditions);
-        boolean isMatch = conditionMatcher.lookingAt();
-        if (isMatch) {
-            String condition = conditions.substring(conditionMatcher.start(), conditionMatcher.end());
-            try {
-                verifier.verifyVariableUsage(BOOLEAN_TYPE, condition);
-            } catch (BaseVariableException error) {
-                throw new ConditionException(error.getMessage());
-            }
-            conditions = conditions.substring(conditionMatcher.end());
+    private static int handleCondition(TokenStream tokens, VariableVerifier verifier, int index)
+            throws ConditionException {
+        if (!tokens.type(index).isCondition()) {
+            throw new ConditionException(ERROR_MSG);
         }
-        return isMatch;
+        try {
+            verifier.verifyVariableUsage(Type.BOOLEAN, tokens, index);
+        } catch (BaseVariableException error) {
+            throw new ConditionException(error.getMessage());
+        }
+        return index + 1;
     }
 
 
     /**
      * check for the validity of operator
      *
-     * @return true if the current operator is valid, false otherwise
+     * @param type the type of the token after a condition
+     * @return true if the token is a valid operator, false otherwise
      */
-    private static boolean handleOperatorCondition() {
-        Matcher operatorMatcher = andOr.matcher(conditions);
-        boolean isMatch = operatorMatcher.lookingAt();
-        if (isMatch) {
-            conditions = conditions.substring(operatorMatcher.end());
-        }
-        return isMatch;
+    private static boolean isOperator(TokenType type) {
+        return type == TokenType.OR || type == TokenType.AND;
     }
 }
@@ -0,0 +1,249 @@
+package oop.ex6.lexer;
+
+/**
+ * A hand written lexer, turning a single code line into tokens in one linear scan.
+ * It recognizes the keywords, names, number/string/char literals and punctuation
+ * of the language. Anything else becomes an INVALID token, which no parsing component
+ * accepts. A line starting with "//" is a single COMMENT token.
+ */
+public class Lexer {
+    private static final char SLASH = '/';
+    private static final char UNDERSCORE = '_';
+    private static final char DOT = '.';
+    private static final char PLUS = '+', MINUS = '-';
+    private static final char DOUBLE_QUOTE = '"', SINGLE_QUOTE = '\'';
+    private static final char BACKSLASH = '\\', COMMA = ',';
+    private static final char PIPE = '|', AMPERSAND = '&';
+    private static final int CHAR_LITERAL_LENGTH = 3;
+
+    /**
+     * Tokenize a line into the given stream, replacing its previous content.
+     *
+     * @param line   the line to tokenize
+     * @param tokens the stream to fill
+     */
+    public static void tokenize(CharSequence line, TokenStream tokens) {
+        tokens.reset(line);
+        int length = line.length();
+        if (length > 1 && line.charAt(0) == SLASH && line.charAt(1) == SLASH) {
+            tokens.add(TokenType.COMMENT, 0, length);
+            return;
+        }
+        int index = 0;
+        while (index < length) {
+            char current = line.charAt(index);
+            if (isWhitespace(current)) {
+                index++;
+                continue;
+            }
+            int end;
+            TokenType type;
+            if (isLetter(current) || current == UNDERSCORE) {
+                end = scanWord(line, index + 1);
+                if (current == UNDERSCORE && end == index + 1) {
+                    type = TokenType.INVALID;
+                } else {
+                    type = TokenType.wordType(line, index, end);
+                }
+            } else if (isDigit(current) || current == DOT) {
+                end = scanNumber(line, index);
+                type = TokenType.NUMBER;
+            } else if (current == PLUS || current == MINUS) {
+                end = scanNumber(line, index + 1);
+                type = TokenType.NUMBER;
+            } else if (current == DOUBLE_QUOTE) {
+                end = scanString(line, index);
+                type = TokenType.STRING_LITERAL;
+            } else if (current == SINGLE_QUOTE) {
+                end = scanChar(line, index);
+                type = TokenType.CHAR_LITERAL;
+            } else {
+                end = index + 1;
+                type = punctuationType(current);
+                if (type == TokenType.OR || type == TokenType.AND) {
+                    if (end < length && line.charAt(end) == current) {
+                        end++;
+                    } else {
+                        type = TokenType.INVALID;
+                    }
+                }
+            }
+            if (end < 0) {
+                // A literal that isn't well formed
+                type = TokenType.INVALID;
+                end = index + 1;
+            }
+            tokens.add(type, index, end);
+            index = end;
+        }
+    }
+
+    /**
+     * Scan the rest of a word
+     *
+     * @param line  the line to scan
+     * @param index the index after the first character of the word
+     * @return the index after the word end
+     */
+    private static int scanWord(CharSequence line, int index) {
+        while (index < line.length() && isWordCharacter(line.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Scan a number - digits with an optional dot, where at least one digit appears
+     *
+     * @param line  the line to scan
+     * @param index the index the number (after the sign, if any) starts at
+     * @return the index after the number end, or -1 if there's no valid number there
+     */
+    private static int scanNumber(CharSequence line, int index) {
+        int integerEnd = scanDigits(line, index);
+        boolean hasDigits = integerEnd > index;
+        if (integerEnd < line.length() && line.charAt(integerEnd) == DOT) {
+            int fractionEnd = scanDigits(line, integerEnd + 1);
+            if (hasDigits || fractionEnd > integerEnd + 1) {
+                return fractionEnd;
+            }
+            return -1;
+        }
+        return hasDigits ? integerEnd : -1;
+    }
+
+    /**
+     * Scan a sequence of digits
+     *
+     * @param line  the line to scan
+     * @param index the index to start at
+     * @return the index after the last digit
+     */
+    private static int scanDigits(CharSequence line, int index) {
+        while (index < line.length() && isDigit(line.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Scan a string literal - characters other than quotes, backslashes and commas
+     * between two double quotes
+     *
+     * @param line  the line to scan
+     * @param index the index of the opening quote
+     * @return the index after the closing quote, or -1 if the literal isn't valid
+     */
+    private static int scanString(CharSequence line, int index) {
+        for (int i = index + 1; i < line.length(); i++) {
+            char current = line.charAt(i);
+            if (current == DOUBLE_QUOTE) {
+                return i + 1;
+            }
+            if (!isLiteralCharacter(current)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Scan a char literal - a single character other than quotes, backslashes and commas
+     * between two single quotes
+     *
+     * @param line  the line to scan
+     * @param index the index of the opening quote
+     * @return the index after the closing quote, or -1 if the literal isn't valid
+     */
+    private static int scanChar(CharSequence line, int index) {
+        int end = index + CHAR_LITERAL_LENGTH;
+        if (end <= line.length() && line.charAt(end - 1) == SINGLE_QUOTE
+                && isLiteralCharacter(line.charAt(index + 1)) && line.charAt(index + 1) != DOUBLE_QUOTE) {
+            return end;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the type of a single punctuation character
+     *
+     * @param current the character
+     * @return the punctuation type, OR/AND for the first character of "||"/"&&",
+     * or INVALID if it isn't a punctuation character
+     */
+    private static TokenType punctuationType(char current) {
+        switch (current) {
+            case '(':
+                return TokenType.LEFT_PARENTHESIS;
+            case ')':
+                return TokenType.RIGHT_PARENTHESIS;
+            case '{':
+                return TokenType.LEFT_BRACE;
+            case '}':
+                return TokenType.RIGHT_BRACE;
+            case ',':
+                return TokenType.COMMA;
+            case ';':
+                return TokenType.SEMICOLON;
+            case '=':
+                return TokenType.ASSIGN;
+            case PIPE:
+                return TokenType.OR;
+            case AMPERSAND:
+                return TokenType.AND;
+            default:
+                return TokenType.INVALID;
+        }
+    }
+
+    /**
+     * Returns true for the characters matched by \s in the original patterns
+     *
+     * @param current the character to check
+     * @return true if the character is whitespace, false otherwise
+     */
+    public static boolean isWhitespace(char current) {
+        return current == ' ' || current == '\t' || current == '\n' || current == '\u000B'
+                || current == '\f' || current == '\r';
+    }
+
+    /**
+     * Returns true for an ASCII letter
+     *
+     * @param current the character to check
+     * @return true if the character is a letter, false otherwise
+     */
+    public static boolean isLetter(char current) {
+        return (current >= 'a' && current <= 'z') || (current >= 'A' && current <= 'Z');
+    }
+
+    /**
+     * Returns true for an ASCII digit
+     *
+     * @param current the character to check
+     * @return true if the character is a digit, false otherwise
+     */
+    public static boolean isDigit(char current) {
+        return current >= '0' && current <= '9';
+    }
+
+    /**
+     * Returns true for a character that can appear in a word after its first character
+     *
+     * @param current the character to check
+     * @return true if the character can continue a word, false otherwise
+     */
+    public static boolean isWordCharacter(char current) {
+        return isLetter(current) || isDigit(current) || current == UNDERSCORE;
+    }
+
+    /**
+     * Returns true for a character allowed inside a string or char literal
+     *
+     * @param current the character to check
+     * @return true if the character is allowed, false otherwise
+     */
+    public static boolean isLiteralCharacter(char current) {
+        return current != BACKSLASH && current != SINGLE_QUOTE && current != COMMA;
+    }
+}
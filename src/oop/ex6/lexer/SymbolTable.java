@@ -0,0 +1,149 @@
+package oop.ex6.lexer;
+
+/**
+ * Interns the names used in the code into dense int ids, numbered from 0 in the order
+ * they were first seen. The lexer interns every word token, so the parsing components
+ * compare and look up names by their ids instead of hashing and comparing strings.
+ * Looking up a name that was already interned doesn't allocate.
+ */
+public class SymbolTable {
+    /**
+     * The id of a name that isn't in the table
+     */
+    public static final int NO_SYMBOL = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int GROWTH_FACTOR = 2;
+    private static final int HASH_MULTIPLIER = 31;
+
+    // open addressing table from the hash of a name to its id + 1, 0 for an empty slot
+    private int[] slots;
+    private String[] names;
+    private int[] hashes;
+    private int size;
+
+    /**
+     * Create an empty symbol table
+     */
+    public SymbolTable() {
+        slots = new int[INITIAL_CAPACITY * GROWTH_FACTOR];
+        names = new String[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the number of interned names
+     *
+     * @return the number of ids in use - every id is smaller than it
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the name of an id
+     *
+     * @param symbol the id
+     * @return the interned name
+     */
+    public String name(int symbol) {
+        return names[symbol];
+    }
+
+    /**
+     * Intern a name
+     *
+     * @param name the name
+     * @return its id
+     */
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Intern a part of a line
+     *
+     * @param text  the text the name is in
+     * @param start the index the name starts at
+     * @param end   the index after the name end
+     * @return the id of the name
+     */
+    public int intern(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int slot = find(text, start, end, hash);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        if (size == names.length) {
+            grow();
+            slot = find(text, start, end, hash);
+        }
+        names[size] = text.subSequence(start, end).toString();
+        hashes[size] = hash;
+        slots[slot] = ++size;
+        return size - 1;
+    }
+
+    /**
+     * Find the slot of a name - the slot holding it, or the empty slot it should be put in
+     */
+    private int find(CharSequence text, int start, int end, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int symbol = slots[slot] - 1;
+            if (hashes[symbol] == hash && equals(names[symbol], text, start, end)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Double the table, rehashing the interned names
+     */
+    private void grow() {
+        int capacity = names.length * GROWTH_FACTOR;
+        String[] grownNames = new String[capacity];
+        int[] grownHashes = new int[capacity];
+        System.arraycopy(names, 0, grownNames, 0, size);
+        System.arraycopy(hashes, 0, grownHashes, 0, size);
+        names = grownNames;
+        hashes = grownHashes;
+        slots = new int[capacity * GROWTH_FACTOR];
+        int mask = slots.length - 1;
+        for (int symbol = 0; symbol < size; symbol++) {
+            int slot = hashes[symbol] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = symbol + 1;
+        }
+    }
+
+    /**
+     * The hash of a part of a text, spread over the low bits
+     */
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = HASH_MULTIPLIER * hash + text.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Compare an interned name to a part of a text
+     */
+    private static boolean equals(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,112 @@
+package oop.ex6.lexer;
+
+/**
+ * The tokens of many lines, kept after the lines were tokenized so they can be read again
+ * without running the lexer. The tokens of all the lines are stored one after the other in
+ * flat primitive arrays, and every line keeps the index its tokens start at. A token takes
+ * 13 bytes and a line 4 more, so the store is bounded by a maximal number of tokens - once
+ * the next line doesn't fit, it and the lines after it aren't stored.
+ */
+public class TokenStore {
+    private static final int INITIAL_LINES = 1024;
+    private static final int INITIAL_TOKENS = 8 * INITIAL_LINES;
+    private static final int GROWTH_FACTOR = 2;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final int maxTokens;
+    // lineStarts[i] is the index of the first token of line i, lineStarts[lineCount] the token count
+    private int[] lineStarts = new int[INITIAL_LINES + 1];
+    private int lineCount;
+    private byte[] types = new byte[INITIAL_TOKENS];
+    private int[] starts = new int[INITIAL_TOKENS];
+    private int[] ends = new int[INITIAL_TOKENS];
+    private int[] symbols = new int[INITIAL_TOKENS];
+
+    /**
+     * Create an empty store
+     *
+     * @param maxTokens the maximal number of tokens stored
+     */
+    public TokenStore(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Returns the number of lines stored
+     *
+     * @return the number of lines
+     */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Store the tokens of the next line, if they fit
+     *
+     * @param tokens the tokens of the line
+     * @return true if the tokens were stored, false if storing them would pass the maximal
+     * number of tokens
+     */
+    public boolean add(TokenStream tokens) {
+        int tokenCount = lineStarts[lineCount];
+        int size = tokens.size();
+        if (size > maxTokens - tokenCount) {
+            return false;
+        }
+        if (lineCount + 1 == lineStarts.length) {
+            int[] grown = new int[lineStarts.length * GROWTH_FACTOR];
+            System.arraycopy(lineStarts, 0, grown, 0, lineStarts.length);
+            lineStarts = grown;
+        }
+        ensureTokenCapacity(tokenCount + size);
+        for (int index = 0; index < size; index++) {
+            types[tokenCount + index] = (byte) tokens.type(index).ordinal();
+            starts[tokenCount + index] = tokens.start(index);
+            ends[tokenCount + index] = tokens.end(index);
+            symbols[tokenCount + index] = tokens.symbol(index);
+        }
+        lineStarts[++lineCount] = tokenCount + size;
+        return true;
+    }
+
+    /**
+     * Fill a stream with the stored tokens of a line, as if the line was tokenized into it
+     *
+     * @param lineIndex the index of the line
+     * @param line      the line the tokens were read from
+     * @param tokens    the stream to fill
+     */
+    public void load(int lineIndex, CharSequence line, TokenStream tokens) {
+        int first = lineStarts[lineIndex];
+        int end = lineStarts[lineIndex + 1];
+        tokens.reset(line);
+        for (int index = first; index < end; index++) {
+            tokens.add(TYPES[types[index]], starts[index], ends[index], symbols[index]);
+        }
+    }
+
+    /**
+     * Grow the token arrays to hold at least the given number of tokens
+     *
+     * @param capacity the number of tokens to hold
+     */
+    private void ensureTokenCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        int grownCapacity = Math.max(capacity, (int) Math.min(maxTokens, (long) types.length * GROWTH_FACTOR));
+        byte[] grownTypes = new byte[grownCapacity];
+        int[] grownStarts = new int[grownCapacity];
+        int[] grownEnds = new int[grownCapacity];
+        int[] grownSymbols = new int[grownCapacity];
+        int tokenCount = lineStarts[lineCount];
+        System.arraycopy(types, 0, grownTypes, 0, tokenCount);
+        System.arraycopy(starts, 0, grownStarts, 0, tokenCount);
+        System.arraycopy(ends, 0, grownEnds, 0, tokenCount);
+        System.arraycopy(symbols, 0, grownSymbols, 0, tokenCount);
+        types = grownTypes;
+        starts = grownStarts;
+        ends = grownEnds;
+        symbols = grownSymbols;
+    }
+}
@@ -0,0 +1,262 @@
+package oop.ex6.lexer;
+
+/**
+ * The tokens of a single code line, filled by the lexer. A token is kept as its type
+ * and its start/end offsets in the line, so no string is created unless a component
+ * asks for the token text. Word tokens are interned into the symbol table of the stream
+ * as they are added. The stream also has a cursor, used by the parsing components to
+ * consume the tokens in order.
+ * A parser reuses one stream for all of its lines. A stream can also be filled with the
+ * tokens of a line kept in a {@link TokenStore}, without tokenizing the line again.
+ */
+public class TokenStream {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int GROWTH_FACTOR = 2;
+
+    private final SymbolTable symbolTable;
+    private CharSequence line;
+    private TokenType[] types;
+    private int[] starts;
+    private int[] ends;
+    private int[] symbols;
+    private int size;
+    private int position;
+
+    /**
+     * Create an empty token stream with its own symbol table
+     */
+    public TokenStream() {
+        this(new SymbolTable());
+    }
+
+    /**
+     * Create an empty token stream
+     *
+     * @param symbolTable the table the names in the tokens are interned into
+     */
+    public TokenStream(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+        types = new TokenType[INITIAL_CAPACITY];
+        starts = new int[INITIAL_CAPACITY];
+        ends = new int[INITIAL_CAPACITY];
+        symbols = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Clear the stream before tokenizing a new line
+     *
+     * @param line the line that's tokenized into this stream
+     */
+    void reset(CharSequence line) {
+        this.line = line;
+        size = 0;
+        position = 0;
+    }
+
+    /**
+     * Append a token to the stream
+     *
+     * @param type  the token type
+     * @param start the index in the line the token starts at
+     * @param end   the index in the line after the token end
+     */
+    void add(TokenType type, int start, int end) {
+        add(type, start, end, type.isWord() ? symbolTable.intern(line, start, end) : SymbolTable.NO_SYMBOL);
+    }
+
+    /**
+     * Append a token whose name was already interned to the stream
+     *
+     * @param type   the token type
+     * @param start  the index in the line the token starts at
+     * @param end    the index in the line after the token end
+     * @param symbol the id of the word, or NO_SYMBOL if the token isn't a word
+     */
+    void add(TokenType type, int start, int end, int symbol) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = type;
+        starts[size] = start;
+        ends[size] = end;
+        symbols[size] = symbol;
+        size++;
+    }
+
+    /**
+     * Grow the token arrays when the line has more tokens than they can hold
+     */
+    private void grow() {
+        int capacity = types.length * GROWTH_FACTOR;
+        TokenType[] grownTypes = new TokenType[capacity];
+        int[] grownStarts = new int[capacity];
+        int[] grownEnds = new int[capacity];
+        int[] grownSymbols = new int[capacity];
+        System.arraycopy(types, 0, grownTypes, 0, size);
+        System.arraycopy(starts, 0, grownStarts, 0, size);
+        System.arraycopy(ends, 0, grownEnds, 0, size);
+        System.arraycopy(symbols, 0, grownSymbols, 0, size);
+        types = grownTypes;
+        starts = grownStarts;
+        ends = grownEnds;
+        symbols = grownSymbols;
+    }
+
+    /**
+     * Returns the line the tokens were read from
+     *
+     * @return the tokenized line
+     */
+    public CharSequence getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the number of tokens in the line
+     *
+     * @return the number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of a token
+     *
+     * @param index the token index
+     * @return the token type, or END if the index is past the last token
+     */
+    public TokenType type(int index) {
+        if (index >= size) {
+            return TokenType.END;
+        }
+        return types[index];
+    }
+
+    /**
+     * Returns the type of the last token in the line
+     *
+     * @return the last token type, or END if the line has no tokens
+     */
+    public TokenType last() {
+        if (size == 0) {
+            return TokenType.END;
+        }
+        return types[size - 1];
+    }
+
+    /**
+     * Returns the index in the line the token starts at
+     *
+     * @param index the token index
+     * @return the start offset of the token
+     */
+    public int start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Returns the index in the line after the token end
+     *
+     * @param index the token index
+     * @return the end offset of the token
+     */
+    public int end(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Returns the interned id of a word token
+     *
+     * @param index the token index
+     * @return the id of the word in the symbol table, or NO_SYMBOL if the token isn't a word
+     */
+    public int symbol(int index) {
+        if (index >= size) {
+            return SymbolTable.NO_SYMBOL;
+        }
+        return symbols[index];
+    }
+
+    /**
+     * Returns the table the names in the tokens are interned into
+     *
+     * @return the symbol table
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Returns the text of a token
+     *
+     * @param index the token index
+     * @return the token text
+     */
+    public String text(int index) {
+        return line.subSequence(starts[index], ends[index]).toString();
+    }
+
+    /**
+     * Returns the index of the token the cursor is at
+     *
+     * @return the cursor position
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Move the cursor to a token
+     *
+     * @param index the token index to move to
+     */
+    public void seek(int index) {
+        position = index;
+    }
+
+    /**
+     * Returns the type of the token the cursor is at, without advancing
+     *
+     * @return the current token type, or END if all tokens were consumed
+     */
+    public TokenType peek() {
+        return type(position);
+    }
+
+    /**
+     * Returns the type of the token the cursor is at and advance the cursor
+     *
+     * @return the current token type, or END if all tokens were consumed
+     */
+    public TokenType next() {
+        TokenType current = type(position);
+        if (position < size) {
+            position++;
+        }
+        return current;
+    }
+
+    /**
+     * Advance the cursor if it's at a token of the given type
+     *
+     * @param type the expected token type
+     * @return true if the token matched and was consumed, false otherwise
+     */
+    public boolean accept(TokenType type) {
+        if (type(position) != type) {
+            return false;
+        }
+        position++;
+        return true;
+    }
+
+    /**
+     * Returns true if all the tokens were consumed
+     *
+     * @return true if the cursor is past the last token, false otherwise
+     */
+    public boolean atEnd() {
+        return position >= size;
+    }
+}
@@ -0,0 +1,127 @@
+package oop.ex6.lexer;
+
+/**
+ * The kinds of tokens the lexer produces. Keywords are also words, so like in
+ * the rest of the parser they can be used wherever a name is expected.
+ */
+public enum TokenType {
+    INT("int", true, true),
+    DOUBLE("double", true, true),
+    STRING("String", true, true),
+    BOOLEAN("boolean", true, true),
+    CHAR("char", true, true),
+    FINAL("final", false, true),
+    VOID("void", false, true),
+    IF("if", false, true),
+    WHILE("while", false, true),
+    RETURN("return", false, true),
+    TRUE("true", false, true),
+    FALSE("false", false, true),
+    NAME(null, false, true),
+    NUMBER,
+    STRING_LITERAL,
+    CHAR_LITERAL,
+    LEFT_PARENTHESIS,
+    RIGHT_PARENTHESIS,
+    LEFT_BRACE,
+    RIGHT_BRACE,
+    COMMA,
+    SEMICOLON,
+    ASSIGN,
+    OR,
+    AND,
+    COMMENT,
+    // Any character sequence that isn't a legal token
+    INVALID,
+    // Returned when reading past the last token of a line
+    END;
+
+    private static final TokenType[] KEYWORDS = {INT, DOUBLE, STRING, BOOLEAN, CHAR, FINAL, VOID, IF,
+            WHILE, RETURN, TRUE, FALSE};
+
+    private final String keyword;
+    private final boolean isType;
+    private final boolean isWord;
+
+    TokenType() {
+        this(null, false, false);
+    }
+
+    TokenType(String keyword, boolean isType, boolean isWord) {
+        this.keyword = keyword;
+        this.isType = isType;
+        this.isWord = isWord;
+    }
+
+    /**
+     * Returns true if the token is one of the variable types
+     *
+     * @return true if the token is a type keyword, false otherwise
+     */
+    public boolean isType() {
+        return isType;
+    }
+
+    /**
+     * Returns true if the token is a word - a name or a keyword
+     *
+     * @return true if the token is a word, false otherwise
+     */
+    public boolean isWord() {
+        return isWord;
+    }
+
+    /**
+     * Returns true if the token can be used as a value - a literal or a reference
+     * to a variable
+     *
+     * @return true if the token is a value, false otherwise
+     */
+    public boolean isValue() {
+        return isWord || this == NUMBER || this == STRING_LITERAL || this == CHAR_LITERAL;
+    }
+
+    /**
+     * Returns true if the token can be used as a single condition in an if/while
+     * statement - a boolean or a number literal, or a reference to a variable
+     *
+     * @return true if the token is a condition, false otherwise
+     */
+    public boolean isCondition() {
+        return isWord || this == NUMBER;
+    }
+
+    /**
+     * Find the type of word in a line, without creating a string of it
+     *
+     * @param line  the line the word is in
+     * @param start the index the word starts at
+     * @param end   the index after the word end
+     * @return the keyword type matching the word, or NAME if it's not a keyword
+     */
+    static TokenType wordType(CharSequence line, int start, int end) {
+        for (TokenType type : KEYWORDS) {
+            if (type.keyword.length() == end - start && regionMatches(line, start, type.keyword)) {
+                return type;
+            }
+        }
+        return NAME;
+    }
+
+    /**
+     * Compare a region of the line with a keyword
+     *
+     * @param line    the line to compare in
+     * @param start   where the region starts
+     * @param keyword the keyword to compare to, of the region length
+     * @return true if the region is the keyword, false otherwise
+     */
+    private static boolean regionMatches(CharSequence line, int start, String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (line.charAt(start + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,539 @@
+package oop.ex6.main;
+
+import oop.ex6.source.AsciiSourceLines;
+import oop.ex6.source.SourceLines;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Validates many files at once, in a single JVM. The files are collected from files,
+ * directory trees, globs and lists of paths by a collector thread while the files found
+ * before are already validated. The collector sorts every window of files it finds largest
+ * first, so a huge file doesn't start last and hold up the end of the run, and hands them to
+ * a few reader threads through a bounded queue. The readers read the files into memory and
+ * hand them to the validator threads through another bounded queue, so reading overlaps
+ * parsing and no more than a few files wait in memory, however many files there are.
+ * The result of every file is passed to a listener as soon as it's ready, from the validator
+ * thread that found it. A file failing the validator itself gets an error result rather
+ * than ending the run.
+ * In fail fast mode the first invalid file cancels the files not validated yet, and no
+ * result is passed after it.
+ */
+public class BatchValidator {
+    /**
+     * Receives the result of every file validated
+     */
+    public interface Listener {
+        /**
+         * Called once per file, possibly from several threads at once
+         *
+         * @param file   the validated file
+         * @param result its result
+         */
+        void validated(Path file, ValidationResult result);
+    }
+
+    /**
+     * The files a directory walk includes when no pattern is given
+     */
+    public static final String DEFAULT_INCLUDE = "*.sjava";
+    private static final String GLOB_SYNTAX = "glob:";
+    private static final String GLOB_CHARACTERS = "*?[{";
+    private static final String INTERNAL_ERROR_MESSAGE = "The file failed the validator: ";
+    private static final char SEPARATOR = '/';
+    private static final int DEFAULT_READERS = 2;
+    // how many read files may wait for a validator, per validator
+    private static final int QUEUED_PER_VALIDATOR = 2;
+    // how many collected files are sorted largest first together, and may wait for a reader
+    private static final int SCHEDULING_WINDOW = 1024;
+    // the size of a file that can't be read, so it's scheduled last
+    private static final long UNKNOWN_SIZE = -1;
+    // the lines of a file the readers failed to read - the parser reads it again and reports why
+    private static final SourceLines UNREAD = null;
+    private static final Comparator<Input> LARGEST_FIRST =
+            Comparator.comparingLong((Input input) -> input.size).reversed();
+
+    // a file to validate and its size in bytes - END ends a reader
+    private static class Input {
+        private static final Input END = new Input(null, UNKNOWN_SIZE);
+        private final Path file;
+        private final long size;
+
+        private Input(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    // a file read by a reader, or the error reading it, waiting for a validator - END ends a validator
+    private static class ReadFile {
+        private static final ReadFile END = new ReadFile(null, null, null);
+        private final Path file;
+        private final SourceLines lines;
+        private final Throwable failure;
+
+        private ReadFile(Path file, SourceLines lines, Throwable failure) {
+            this.file = file;
+            this.lines = lines;
+            this.failure = failure;
+        }
+    }
+
+    // an argument added, or a reader of paths - one per line, each an argument
+    private static class Argument {
+        private final String argument;
+        private final BufferedReader paths;
+
+        private Argument(String argument, BufferedReader paths) {
+            this.argument = argument;
+            this.paths = paths;
+        }
+    }
+
+    private final List<Argument> arguments = new ArrayList<>();
+    // the files collected in the current run, so a file is validated once
+    private final Set<Path> added = new HashSet<>();
+    // the files collected but not sorted and scheduled yet
+    private final List<Input> window = new ArrayList<>();
+    private PathMatcher include = FileSystems.getDefault().getPathMatcher(GLOB_SYNTAX + DEFAULT_INCLUDE);
+    private int validators = Runtime.getRuntime().availableProcessors();
+    private int readers = DEFAULT_READERS;
+    private boolean failFast;
+    private boolean collectAllErrors;
+    private boolean singlePass;
+
+    /**
+     * Set the number of threads validating files
+     *
+     * @param validators the number of validator threads, by default the number of processors
+     */
+    public void setValidators(int validators) {
+        this.validators = Math.max(1, validators);
+    }
+
+    /**
+     * Set the number of threads reading files
+     *
+     * @param readers the number of reader threads, 2 by default
+     */
+    public void setReaders(int readers) {
+        this.readers = Math.max(1, readers);
+    }
+
+    /**
+     * Set whether to stop at the first invalid file
+     *
+     * @param failFast true to cancel the remaining files on the first invalid one, false to
+     *                 validate all of them (the default)
+     */
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    /**
+     * Set whether to collect all the errors in every file, see {@link Parser#setCollectAllErrors}
+     *
+     * @param collectAllErrors true to collect all the errors, false to stop at the first (the default)
+     */
+    public void setCollectAllErrors(boolean collectAllErrors) {
+        this.collectAllErrors = collectAllErrors;
+    }
+
+    /**
+     * Set whether to validate every file in a single scan, see {@link Parser#setSinglePass}
+     *
+     * @param singlePass true to validate in a single scan, false for two passes (the default)
+     */
+    public void setSinglePass(boolean singlePass) {
+        this.singlePass = singlePass;
+    }
+
+    /**
+     * Set the files included when walking a directory. Files added directly are always included.
+     *
+     * @param pattern a glob matched against the file names, {@value #DEFAULT_INCLUDE} by default
+     */
+    public void setInclude(String pattern) {
+        include = FileSystems.getDefault().getPathMatcher(GLOB_SYNTAX + pattern);
+    }
+
+    /**
+     * Add the files of an argument - a file, a directory whose included files are walked, or a
+     * glob such as src/**&#47;*.sjava, matched against the paths under its directory part.
+     * The files are collected while validating. A file added more than once is validated once.
+     *
+     * @param argument the argument
+     */
+    public void add(String argument) {
+        arguments.add(new Argument(argument, null));
+    }
+
+    /**
+     * Add the files of the arguments read from a reader, one per line - see {@link #add(String)}.
+     * The paths are read while validating, so the reader may still be producing them, and
+     * they're not all kept in memory.
+     *
+     * @param paths the reader of the arguments
+     */
+    public void addPaths(Reader paths) {
+        arguments.add(new Argument(null, new BufferedReader(paths)));
+    }
+
+    /**
+     * Validate all the files added, largest first within every window of files collected,
+     * and wait for all of them
+     *
+     * @param listener receives the result of every file
+     * @return true if every file passed to the listener is valid, false otherwise
+     * @throws IOException          if a directory can't be walked or the paths can't be read,
+     *                              cancelling the remaining files
+     * @throws InterruptedException if interrupted while waiting, cancelling the remaining files
+     */
+    public boolean validate(Listener listener) throws IOException, InterruptedException {
+        BlockingQueue<Input> inputs = new ArrayBlockingQueue<>(SCHEDULING_WINDOW);
+        BlockingQueue<ReadFile> queue = new ArrayBlockingQueue<>(validators * QUEUED_PER_VALIDATOR);
+        AtomicInteger runningReaders = new AtomicInteger(readers);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean allValid = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(1 + readers + validators);
+        try {
+            pool.execute(() -> collect(inputs, cancelled, failure));
+            for (int reader = 0; reader < readers; reader++) {
+                pool.execute(() -> read(inputs, queue, runningReaders, cancelled));
+            }
+            for (int validator = 0; validator < validators; validator++) {
+                pool.execute(() -> validate(queue, listener, cancelled, allValid, failure));
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting for the files still running
+            }
+        } catch (InterruptedException error) {
+            cancelled.set(true);
+            pool.shutdownNow();
+            throw error;
+        }
+        rethrow(failure.get());
+        return allValid.get();
+    }
+
+    /**
+     * Throw the failure that cancelled a run, if any
+     *
+     * @param failure the failure, or null
+     * @throws IOException if the failure is an I/O error
+     */
+    private static void rethrow(Throwable failure) throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    /**
+     * The collector thread - collects the files of the arguments, and ends the readers once
+     * they're all collected. A failure cancels the run.
+     */
+    private void collect(BlockingQueue<Input> inputs, AtomicBoolean cancelled, AtomicReference<Throwable> failure) {
+        try {
+            collectArguments(inputs, cancelled);
+        } catch (InterruptedException | InterruptedIOException error) {
+            // The run was cancelled, and the readers are interrupted too
+            cancelled.set(true);
+            return;
+        } catch (Throwable error) {
+            failure.compareAndSet(null, error);
+            cancelled.set(true);
+        } finally {
+            added.clear();
+            window.clear();
+        }
+        try {
+            for (int reader = 0; reader < readers; reader++) {
+                inputs.put(Input.END);
+            }
+        } catch (InterruptedException error) {
+            cancelled.set(true);
+        }
+    }
+
+    /**
+     * Collect the files of all the arguments, and schedule the last window
+     *
+     * @param inputs    the queue of the files to read
+     * @param cancelled whether the run was cancelled
+     * @throws IOException          if a directory can't be walked or the paths can't be read
+     * @throws InterruptedException if interrupted while waiting for the readers
+     */
+    private void collectArguments(BlockingQueue<Input> inputs, AtomicBoolean cancelled)
+            throws IOException, InterruptedException {
+        for (Argument argument : arguments) {
+            if (argument.paths == null) {
+                collect(argument.argument, inputs, cancelled);
+                continue;
+            }
+            String line;
+            while (!cancelled.get() && (line = argument.paths.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    collect(line, inputs, cancelled);
+                }
+            }
+        }
+        schedule(inputs, cancelled);
+    }
+
+    /**
+     * Collect the files of an argument, see {@link #add(String)}
+     *
+     * @param argument  the argument
+     * @param inputs    the queue of the files to read
+     * @param cancelled whether the run was cancelled
+     * @throws IOException          if a directory can't be walked
+     * @throws InterruptedException if interrupted while waiting for the readers
+     */
+    private void collect(String argument, BlockingQueue<Input> inputs, AtomicBoolean cancelled)
+            throws IOException, InterruptedException {
+        int globStart = firstGlobCharacter(argument);
+        if (globStart < 0) {
+            Path path = Paths.get(argument);
+            if (Files.isDirectory(path)) {
+                walk(path, include, false, inputs, cancelled);
+            } else {
+                addFile(path, inputs, cancelled);
+            }
+            return;
+        }
+        int baseEnd = argument.lastIndexOf(SEPARATOR, globStart);
+        Path base = Paths.get(baseEnd < 0 ? "" : argument.substring(0, baseEnd + 1));
+        if (Files.isDirectory(base)) {
+            walk(base, FileSystems.getDefault().getPathMatcher(GLOB_SYNTAX + argument.substring(baseEnd + 1)),
+                    true, inputs, cancelled);
+        }
+    }
+
+    /**
+     * @param argument an argument
+     * @return the index of its first glob character, or -1 if it has none
+     */
+    private static int firstGlobCharacter(String argument) {
+        for (int index = 0; index < argument.length(); index++) {
+            if (GLOB_CHARACTERS.indexOf(argument.charAt(index)) >= 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Add a file given directly, whether or not it exists - the parser reports it if it can't be read
+     *
+     * @param file      the file
+     * @param inputs    the queue of the files to read
+     * @param cancelled whether the run was cancelled
+     * @throws InterruptedException if interrupted while waiting for the readers
+     */
+    private void addFile(Path file, BlockingQueue<Input> inputs, AtomicBoolean cancelled)
+            throws InterruptedException {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException error) {
+            size = UNKNOWN_SIZE;
+        }
+        addInput(file, size, inputs, cancelled);
+    }
+
+    /**
+     * Add the matching files of a directory tree, stopping once the run is cancelled
+     *
+     * @param directory the directory
+     * @param matcher   matches the files to add
+     * @param relative  whether the matcher is matched against the path relative to the
+     *                  directory, rather than the file name
+     * @param inputs    the queue of the files to read
+     * @param cancelled whether the run was cancelled
+     * @throws IOException if the directory can't be walked, or an InterruptedIOException if
+     *                     interrupted while waiting for the readers
+     */
+    private void walk(Path directory, PathMatcher matcher, boolean relative, BlockingQueue<Input> inputs,
+                      AtomicBoolean cancelled) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                if (attributes.isRegularFile()
+                        && matcher.matches(relative ? directory.relativize(file) : file.getFileName())) {
+                    try {
+                        addInput(file, attributes.size(), inputs, cancelled);
+                    } catch (InterruptedException error) {
+                        // The visitor can only throw I/O errors
+                        throw new InterruptedIOException(error.getMessage());
+                    }
+                }
+                return cancelled.get() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Add a single file, unless it was already added, scheduling the window once it's full
+     *
+     * @param file      the file
+     * @param size      its size in bytes, or UNKNOWN_SIZE
+     * @param inputs    the queue of the files to read
+     * @param cancelled whether the run was cancelled
+     * @throws InterruptedException if interrupted while waiting for the readers
+     */
+    private void addInput(Path file, long size, BlockingQueue<Input> inputs, AtomicBoolean cancelled)
+            throws InterruptedException {
+        if (added.add(file.toAbsolutePath().normalize())) {
+            window.add(new Input(file, size));
+            if (window.size() == SCHEDULING_WINDOW) {
+                schedule(inputs, cancelled);
+            }
+        }
+    }
+
+    /**
+     * Hand the files of the window to the readers, largest first, waiting for room in the queue
+     *
+     * @param inputs    the queue of the files to read
+     * @param cancelled whether the run was cancelled
+     * @throws InterruptedException if interrupted while waiting for the readers
+     */
+    private void schedule(BlockingQueue<Input> inputs, AtomicBoolean cancelled) throws InterruptedException {
+        window.sort(LARGEST_FIRST);
+        for (Input input : window) {
+            if (cancelled.get()) {
+                break;
+            }
+            inputs.put(input);
+        }
+        window.clear();
+    }
+
+    /**
+     * A reader thread - reads the next file until the collector ends it, dropping them once
+     * the run is cancelled. The last reader to end also ends the validators.
+     */
+    private void read(BlockingQueue<Input> inputs, BlockingQueue<ReadFile> queue, AtomicInteger runningReaders,
+                      AtomicBoolean cancelled) {
+        try {
+            Input input;
+            while ((input = inputs.take()) != Input.END) {
+                if (!cancelled.get()) {
+                    queue.put(read(input.file));
+                }
+            }
+            if (runningReaders.decrementAndGet() == 0) {
+                for (int validator = 0; validator < validators; validator++) {
+                    queue.put(ReadFile.END);
+                }
+            }
+        } catch (InterruptedException error) {
+            cancelled.set(true);
+        }
+    }
+
+    /**
+     * @param file a file
+     * @return the file read, UNREAD if it can't be read, or the failure reading it
+     */
+    private static ReadFile read(Path file) {
+        try {
+            return new ReadFile(file, AsciiSourceLines.read(file), null);
+        } catch (IOException error) {
+            return new ReadFile(file, UNREAD, null);
+        } catch (Throwable error) {
+            return new ReadFile(file, UNREAD, error);
+        }
+    }
+
+    /**
+     * A validator thread - validates the read files until the readers end it, dropping them
+     * once the run is cancelled. A failure of the listener cancels the run.
+     */
+    private void validate(BlockingQueue<ReadFile> queue, Listener listener, AtomicBoolean cancelled,
+                          AtomicBoolean allValid, AtomicReference<Throwable> failure) {
+        try {
+            ReadFile readFile;
+            while ((readFile = queue.take()) != ReadFile.END) {
+                if (cancelled.get()) {
+                    continue;
+                }
+                ValidationResult result = validate(readFile);
+                if (!result.isValid()) {
+                    allValid.set(false);
+                    if (failFast && cancelled.getAndSet(true)) {
+                        // Another file already failed the run first
+                        continue;
+                    }
+                } else if (cancelled.get()) {
+                    continue;
+                }
+                try {
+                    listener.validated(readFile.file, result);
+                } catch (Throwable error) {
+                    failure.compareAndSet(null, error);
+                    cancelled.set(true);
+                }
+            }
+        } catch (InterruptedException error) {
+            cancelled.set(true);
+        }
+    }
+
+    /**
+     * Validate a read file. A failure of the validator itself, or of reading the file, is the
+     * error of the file, so it doesn't end the thread validating it.
+     *
+     * @param readFile the file
+     * @return its result
+     */
+    private ValidationResult validate(ReadFile readFile) {
+        Throwable failure = readFile.failure;
+        if (failure == null) {
+            try {
+                String filename = readFile.file.toString();
+                Parser parser = readFile.lines == UNREAD ? new Parser(filename)
+                        : new Parser(filename, readFile.lines);
+                parser.setCollectAllErrors(collectAllErrors);
+                parser.setSinglePass(singlePass);
+                return parser.validate();
+            } catch (Throwable error) {
+                failure = error;
+            }
+        }
+        return ValidationResult.invalid(new ParserException(INTERNAL_ERROR_MESSAGE + failure,
+                ParserException.IO_ERROR), ValidationResult.NO_LINE);
+    }
+}
@@ -0,0 +1,59 @@
+package oop.ex6.main;
+
+/**
+ * A single error found in a file - the error and the line it was found at. The message shown
+ * to the user is built only when asked for.
+ */
+public class Diagnostic {
+    /**
+     * The line of an error that isn't related to a specific line, like an I/O error
+     */
+    public static final int NO_LINE = 0;
+    private static final String LINE_PREFIX = "line ";
+    private static final String LINE_SEPARATOR = ": ";
+
+    private final ParserException error;
+    private final int line;
+    private String message;
+
+    /**
+     * @param error the error found
+     * @param line  the 1 based line the error was found at, or NO_LINE
+     */
+    public Diagnostic(ParserException error, int line) {
+        this.error = error;
+        this.line = line;
+    }
+
+    /**
+     * @return the error found
+     */
+    public ParserException getError() {
+        return error;
+    }
+
+    /**
+     * @return the 1 based line the error was found at, or NO_LINE
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the error message, prefixed with its line
+     */
+    public String getMessage() {
+        if (message == null) {
+            message = line == NO_LINE ? error.getMessage() : LINE_PREFIX + line + LINE_SEPARATOR + error.getMessage();
+        }
+        return message;
+    }
+
+    /**
+     * @return the error message, prefixed with its line
+     */
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,74 @@
+package oop.ex6.main;
+
+import oop.ex6.conditions.IfBlock;
+import oop.ex6.conditions.WhileBlock;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
+import oop.ex6.methods.MethodCall;
+import oop.ex6.methods.MethodSignature;
+import oop.ex6.methods.Return;
+
+/**
+ * The kind of a code line, decided by its tokens alone - which component handles it in the
+ * main pass. The kind only tells which check a line goes through, not whether it's valid.
+ */
+public enum LineKind {
+    // an empty line or a comment
+    BLANK,
+    // a line ending with ';' starting with a type or final
+    DECLARATION,
+    // any other line ending with ';' that isn't a call or a return
+    ASSIGNMENT,
+    // a line ending with ';' starting with a method name and '(' - a call if such a method
+    // was declared, otherwise it's parsed as a variable line
+    CALL,
+    RETURN,
+    IF,
+    WHILE,
+    METHOD_HEADER,
+    // any other line ending with '{', which opens a scope but isn't valid
+    BLOCK_START,
+    CLOSE_BRACE,
+    // a line not ending with ';', '{' or a lone '}', or a comment ending with "//"
+    INVALID;
+
+    /**
+     * Classify a tokenized line
+     *
+     * @param tokens     the tokens of the line, unless it's a bad comment
+     * @param badComment whether the line is a comment ending with "//"
+     * @return the line kind
+     */
+    static LineKind of(TokenStream tokens, boolean badComment) {
+        if (badComment) {
+            return INVALID;
+        }
+        if (tokens.size() == 0 || tokens.type(0) == TokenType.COMMENT) {
+            return BLANK;
+        }
+        switch (tokens.last()) {
+            case SEMICOLON:
+                if (MethodCall.isMethodCallForm(tokens)) {
+                    return CALL;
+                } else if (Return.isReturn(tokens)) {
+                    return RETURN;
+                } else if (tokens.type(0).isType() || tokens.type(0) == TokenType.FINAL) {
+                    return DECLARATION;
+                }
+                return ASSIGNMENT;
+            case LEFT_BRACE:
+                if (IfBlock.isIfStart(tokens)) {
+                    return IF;
+                } else if (WhileBlock.isWhileBlockStart(tokens)) {
+                    return WHILE;
+                } else if (MethodSignature.isMethodSignatureStart(tokens)) {
+                    return METHOD_HEADER;
+                }
+                return BLOCK_START;
+            case RIGHT_BRACE:
+                return tokens.size() == 1 ? CLOSE_BRACE : INVALID;
+            default:
+                return INVALID;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package oop.ex6.main;
+
+import oop.ex6.lexer.TokenStore;
+import oop.ex6.lexer.TokenStream;
+
+/**
+ * A compact record of every line of a file, produced by the globals pass and read by the
+ * passes after it - the line kind, the brace depth the line starts at, and optionally its
+ * tokens, all in primitive arrays. With the tokens kept, lines are verified without being
+ * tokenized again, and the offsets of the tokens give the trimmed bounds of every line.
+ * At most MAX_TOKENS tokens are kept, about 14 MB with the line offsets, and the lines after
+ * them are tokenized again.
+ */
+class LineTable {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int GROWTH_FACTOR = 2;
+    private static final LineKind[] KINDS = LineKind.values();
+    private static final int MAX_TOKENS = 1 << 20;
+
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] depths = new int[INITIAL_CAPACITY];
+    private int lineCount;
+    // the tokens of the first lines, or null if they aren't kept
+    private final TokenStore tokenStore;
+    // whether the tokens of a line didn't fit in the store, so the lines from it on aren't kept
+    private boolean tokenStoreFull;
+
+    /**
+     * Create an empty table
+     *
+     * @param keepTokens whether to keep the tokens of the lines, trading memory for not
+     *                   tokenizing them again
+     */
+    LineTable(boolean keepTokens) {
+        tokenStore = keepTokens ? new TokenStore(MAX_TOKENS) : null;
+    }
+
+    /**
+     * Record the next line
+     *
+     * @param tokens the tokens of the line
+     * @param kind   the line kind
+     * @param depth  the number of blocks open when the line starts
+     */
+    void add(TokenStream tokens, LineKind kind, int depth) {
+        if (lineCount == kinds.length) {
+            int capacity = kinds.length * GROWTH_FACTOR;
+            byte[] grownKinds = new byte[capacity];
+            int[] grownDepths = new int[capacity];
+            System.arraycopy(kinds, 0, grownKinds, 0, lineCount);
+            System.arraycopy(depths, 0, grownDepths, 0, lineCount);
+            kinds = grownKinds;
+            depths = grownDepths;
+        }
+        kinds[lineCount] = (byte) kind.ordinal();
+        depths[lineCount] = depth;
+        lineCount++;
+        if (tokenStore != null && !tokenStoreFull) {
+            tokenStoreFull = !tokenStore.add(tokens);
+        }
+    }
+
+    /**
+     * @return the number of lines recorded
+     */
+    int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @param lineIndex the line index
+     * @return the line kind
+     */
+    LineKind kind(int lineIndex) {
+        return KINDS[kinds[lineIndex]];
+    }
+
+    /**
+     * @param lineIndex the line index
+     * @return the number of blocks open when the line starts, 0 in the global scope
+     */
+    int depth(int lineIndex) {
+        return depths[lineIndex];
+    }
+
+    /**
+     * @param lineIndex the line index
+     * @return true if the tokens of the line are kept
+     */
+    boolean hasTokens(int lineIndex) {
+        return tokenStore != null && lineIndex < tokenStore.lineCount();
+    }
+
+    /**
+     * Fill a stream with the kept tokens of a line
+     *
+     * @param lineIndex the line index
+     * @param line      the line content
+     * @param tokens    the stream to fill
+     */
+    void loadTokens(int lineIndex, CharSequence line, TokenStream tokens) {
+        tokenStore.load(lineIndex, line, tokens);
+    }
+}
@@ -0,0 +1,32 @@
+package oop.ex6.main;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for verifying the body of a single method, from its signature to
+ * its closing brace
+ */
+@Name(MethodEvent.NAME)
+@Label("Sjava Method Verified")
+@Category({"Sjava", "Parser"})
+@StackTrace(false)
+@Description("Verifying the body of a single s-java method")
+final class MethodEvent extends jdk.jfr.Event {
+    static final String NAME = "oop.ex6.Method";
+
+    @Label("Method")
+    String method;
+
+    @Label("Start Line")
+    int startLine;
+
+    @Label("End Line")
+    int endLine;
+
+    @Label("Max Scope Depth")
+    int maxDepth;
+}
@@ -0,0 +1,33 @@
+package oop.ex6.main;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for parsing a single file, from reading it to its result
+ */
+@Name(ParseEvent.NAME)
+@Label("Sjava Parse")
+@Category({"Sjava", "Parser"})
+@StackTrace(false)
+@Description("Parsing a single s-java file")
+final class ParseEvent extends jdk.jfr.Event {
+    static final String NAME = "oop.ex6.Parse";
+
+    @Label("Path")
+    String path;
+
+    @Label("File Size")
+    @DataAmount
+    long fileSize;
+
+    @Label("Line Count")
+    int lineCount;
+
+    @Label("Valid")
+    boolean valid;
+}
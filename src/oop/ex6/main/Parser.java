@@ -3,14 +3,33 @@ package oop.ex6.main;
 
 import oop.ex6.conditions.IfBlock;
 import oop.ex6.conditions.WhileBlock;
+import oop.ex6.lexer.Lexer;
+import oop.ex6.lexer.SymbolTable;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
 import oop.ex6.methods.*;
+import oop.ex6.source.AsciiSourceLines;
+import oop.ex6.source.MappedSourceLines;
+import oop.ex6.source.ReadSourceLines;
+import oop.ex6.source.SourceLines;
+import oop.ex6.source.TextSourceLines;
 import oop.ex6.variables.*;
 
+import jdk.jfr.FlightRecorder;
+
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.LinkedList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 
 /**
@@ -53,37 +72,101 @@ class NoReturnInMethodEnd extends ParserException {
  * Variables, Method declarations, Method calls, If/While, Ignoring comments
  * and whitespace.
  * Parse is the main parsing API, throwing an error indicating a parse error,
- * indicating a valid code file if no error is thrown.
+ * indicating a valid code file if no error is thrown. Validate is the same, returning
+ * the result instead of throwing.
+ * By default parsing stops at the first error. When collecting all the errors, an error is
+ * recorded and parsing recovers at the next line - or, for an invalid method signature,
+ * after the method body - so a single run reports every error in the file.
+ * All the parsing state (scopes, declared methods) is held by the parser instance.
+ * An instance parses a single file once and isn't meant to be shared between threads,
+ * while separate instances can run concurrently - see {@link #parse(Path)}.
+ * In the parallel mode, the second pass of a large file is split at the ends of its top level
+ * blocks, and the parts are verified concurrently - every method starts from a fresh copy of
+ * the globals, so they don't depend on each other. The first error in the file is reported,
+ * like in the serial pass.
+ * In the single pass mode, both passes are fused into one scan of the file - see
+ * {@link #setSinglePass(boolean)}.
  */
 public class Parser {
-    private static final Pattern EMPTY_LINE = Pattern.compile("^\\s*$");
-    private static final Pattern COMMENT_LINE = Pattern.compile("^//.*$");
-    private static final Pattern BAD_COMMENT_LINE = Pattern.compile("^.+//$");
-    private static final String BLOCK_BODY_LINE_END = ";";
-    private static final String SCOPE_START_LINE_END = "{", SCOPE_END_LINE_END = "}";
+    private static final String COMMENT_START = "//";
+    private static final String SCOPE_START_LINE_END = "{";
     private static final String IO_ERROR_MESSAGE = "An error occured when trying to read the file, exiting.";
+    // the name of a source that isn't a file, in the Flight Recorder events
+    private static final String IN_MEMORY_SOURCE_NAME = "<memory>";
     private static final String INVALID_LINE_ERROR_MESSAGE = "Invalid line - not a valid code line or " +
             "comment";
     private static final String GLOBAL_METHOD_CALL_ERROR = "Calling a method from the global scope is " +
             "undefined";
     private static final int ONE_LEVEL_DEEP_NESTING = 1;
+    private static final int NOT_SKIPPING = Integer.MAX_VALUE;
+    // Files with fewer lines are verified serially even in the parallel mode
+    private static final int PARALLEL_MIN_LINES = 20_000;
+    // The parallel pass is split into about this many parts per core, to balance the load
+    private static final int CHUNKS_PER_CORE = 4;
+    private static final int MIN_CHUNK_LINES = 2_000;
+    private static final int NO_FAILED_CHUNK = Integer.MAX_VALUE;
 
-    // parentScope - the scope just above what we are currently declaring and using.
-    // currentScope - the current working scope
-    // globalScope - the scope of globals. This is also the initial parentScope,
-    // and the parentScope is restored to it when returning from a function.
-    private VariableScope parentScope, currentScope, globalScope;
+    // currentScope - the current innermost scope, nested in the scopes of the enclosing blocks.
+    // globalScope - the scope of globals. This is the outermost scope of every method,
+    // and it is restored from a fresh copy when returning from a function.
+    private VariableScope currentScope, globalScope;
+    // The copy of the globals the current or last top level block started from. The next block
+    // reuses its index, which is sized by the symbol table, instead of allocating a new one.
+    private VariableScope methodGlobals;
     private String inputFilename;
-    private String prevLine;
-    private ArrayList<String> allLines;
+    // Whether the previous line was a return, checked when a method ends
+    private boolean prevLineIsReturn;
+    // The 1 based line currently parsed, reported with the error found in it
+    private int currentLine = ValidationResult.NO_LINE;
+    // Whether to record errors and keep parsing instead of stopping at the first one
+    private boolean collectAllErrors;
+    // The errors recorded when collecting all of them, and the lines they were found at -
+    // a line is reported once even if both passes reject it
+    private final ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+    private final BitSet reportedLines = new BitSet();
+    // The nesting depth of a method whose signature is invalid - errors in its body are
+    // consequences of the signature, so they aren't reported until the method ends
+    private int skippedScopeDepth = NOT_SKIPPING;
+    private SourceLines allLines;
+    // The lines of the file if they were read before parsing, or null to read the file
+    private SourceLines sourceLines;
+    // Whether to memory map the file instead of reading it into strings
+    private boolean memoryMapped;
+    // The tokens of the line currently parsed, reused for all lines
+    private final TokenStream tokens;
     // Used for verifying that every { has a matching } and vice versa.
     private LinkedList<String> bracketStack;
-    // The stack of scopes. Pushed to when entering a new scope on '{',
+    // The stack of enclosing scopes. Pushed to when entering a new scope on '{',
     // and popped when exiting a scope.
     private LinkedList<VariableScope> scopeStack;
     // The currently used variable verifier, used by (almost) all parsing components
     // to check validity of variables and types.
     private VariableVerifier subroutineVerifier;
+    // The methods declared in the file, populated in the first pass.
+    private final MethodSignature methodSignatures;
+    // The table of the declared methods the calls are checked against, built after the first pass
+    private MethodTable methodTable;
+    // The scope of the globals declared so far in the first pass, and its verifier
+    private VariableScope globals;
+    private VariableVerifier globalVariableVerifier;
+    // Whether to verify the methods of large files concurrently
+    private boolean parallel;
+    // The kind, depth and tokens of every line, recorded by the first pass for the passes after it
+    private LineTable lineTable;
+    // Whether to validate the file in a single scan
+    private boolean singlePass;
+    // The metrics of the file, counted whether or not anyone listens, and who they're passed to
+    private final ParserMetrics metrics = new ParserMetrics();
+    private ParserListener listener;
+    // Whether the Flight Recorder is running, checked once per file - the event classes are
+    // loaded only when it is, so a one shot run doesn't pay for loading the recorder
+    private boolean recording;
+    // The Flight Recorder event of the current phase, and of the method currently verified if
+    // method events are recorded - checked once per file, so nothing is created per method
+    // when they aren't
+    private PassEvent passEvent;
+    private MethodEvent methodEvent;
+    private boolean methodEventsEnabled;
 
     /**
      * Create a new parser
@@ -92,25 +175,390 @@ public class Parser {
      */
     public Parser(String inputFilename) {
         this.inputFilename = inputFilename;
-        parentScope = new VariableScope();
-        allLines = new ArrayList<>();
         bracketStack = new LinkedList<>();
         scopeStack = new LinkedList<>();
+        methodSignatures = new MethodSignature();
+        tokens = new TokenStream();
     }
 
     /**
-     * Parse the file.
+     * Create a parser for lines that were already read or are in memory, so no file is read.
+     *
+     * @param inputFilename the name of the source, the filename of a file that was read
+     * @param lines         the lines to parse
+     */
+    public Parser(String inputFilename, SourceLines lines) {
+        this(inputFilename);
+        sourceLines = lines;
+    }
+
+    /**
+     * Create a parser for lines that are already in memory, passed to it by a {@link ValidationSession}
+     *
+     * @param symbolTable the table the names in the lines are interned into
+     */
+    Parser(SymbolTable symbolTable) {
+        bracketStack = new LinkedList<>();
+        scopeStack = new LinkedList<>();
+        methodSignatures = new MethodSignature();
+        tokens = new TokenStream(symbolTable);
+    }
+
+    /**
+     * Create a parser verifying a part of the file of another parser concurrently with it,
+     * after its first pass. It shares the globals, the declared methods and the names of the
+     * file - the first pass interned all of them, so they're only read from here on.
+     *
+     * @param firstPass the parser that ran the first pass
+     */
+    private Parser(Parser firstPass) {
+        bracketStack = new LinkedList<>();
+        scopeStack = new LinkedList<>();
+        methodSignatures = new MethodSignature();
+        methodTable = firstPass.methodTable;
+        methodEventsEnabled = firstPass.methodEventsEnabled;
+        tokens = new TokenStream(firstPass.tokens.getSymbolTable());
+        allLines = firstPass.allLines;
+        lineTable = firstPass.lineTable;
+        globalScope = firstPass.globalScope;
+    }
+
+    /**
+     * Parse a single file with a fresh parser. Parsers share no mutable state, so this
+     * is safe to call from many threads at once, each call validating its own file.
      *
+     * @param inputPath the path of the file to parse
      * @throws ParserException In case of a parsing error in any of the components.
      */
+    public static void parse(Path inputPath) throws ParserException {
+        new Parser(inputPath.toString()).parse();
+    }
+
+    /**
+     * Validate a single file with a fresh parser, like {@link #parse(Path)}, returning
+     * the result instead of throwing.
+     *
+     * @param inputPath the path of the file to validate
+     * @return the validation result
+     */
+    public static ValidationResult validate(Path inputPath) {
+        return new Parser(inputPath.toString()).validate();
+    }
+
+    /**
+     * Validate code that's already in memory with a fresh parser, like {@link #validate(Path)},
+     * without writing it to a file. The text isn't copied, so it must not change meanwhile.
+     *
+     * @param source the code
+     * @return the validation result
+     */
+    public static ValidationResult validate(CharSequence source) {
+        return new Parser(IN_MEMORY_SOURCE_NAME, new TextSourceLines(source)).validate();
+    }
+
+    /**
+     * Validate the code read from a reader with a fresh parser, like {@link #validate(Path)}.
+     * The reader is read to its end and closed.
+     *
+     * @param source the reader of the code
+     * @return the validation result, an I/O error if the reader failed
+     */
+    public static ValidationResult validate(Reader source) {
+        SourceLines lines;
+        try {
+            lines = new ReadSourceLines(source);
+        } catch (IOException error) {
+            return ioError();
+        }
+        return new Parser(IN_MEMORY_SOURCE_NAME, lines).validate();
+    }
+
+    /**
+     * Validate the code read from a stream with a fresh parser, like {@link #validate(Path)}.
+     * The stream is read to its end but not closed, and its bytes are decoded like a file's -
+     * not at all if they're ASCII, and with the default charset otherwise.
+     *
+     * @param source the stream of the code
+     * @return the validation result, an I/O error if the stream failed
+     */
+    public static ValidationResult validate(InputStream source) {
+        SourceLines lines;
+        try {
+            lines = AsciiSourceLines.of(source.readAllBytes(), Charset.defaultCharset());
+        } catch (IOException error) {
+            return ioError();
+        }
+        return new Parser(IN_MEMORY_SOURCE_NAME, lines).validate();
+    }
+
+    /**
+     * @return the result of a source that couldn't be read
+     */
+    static ValidationResult ioError() {
+        return ValidationResult.invalid(new ParserException(IO_ERROR_MESSAGE, ParserException.IO_ERROR),
+                ValidationResult.NO_LINE);
+    }
+
+    /**
+     * Set whether the file is memory mapped instead of read into the heap. Mapping keeps
+     * only an index of the line offsets on the heap, so it's preferable for huge files.
+     *
+     * @param memoryMapped true to memory map the file, false to read it (the default)
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * Set the lines of the file, when they were already read by the caller, so the file isn't
+     * read again - whether or not it's memory mapped.
+     *
+     * @param lines the lines of the file
+     */
+    void setSourceLines(SourceLines lines) {
+        sourceLines = lines;
+    }
+
+    /**
+     * Set whether to collect all the errors in the file instead of stopping at the first one.
+     *
+     * @param collectAllErrors true to collect all the errors, false to stop at the first (the default)
+     */
+    public void setCollectAllErrors(boolean collectAllErrors) {
+        this.collectAllErrors = collectAllErrors;
+    }
+
+    /**
+     * Set whether to verify the methods of large files concurrently. Only used when stopping
+     * at the first error - collecting all the errors is always serial.
+     *
+     * @param parallel true to verify large files in parallel, false to verify serially (the default)
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Set whether to validate the file in a single scan, verifying every method body as soon as
+     * it's read, against the globals and methods declared before it. A body that fails only
+     * because of something declared later is verified again at the end of the file, once all
+     * the globals and methods are known, so the results are those of the two passes.
+     * Only used when stopping at the first error and not in the parallel mode.
+     *
+     * @param singlePass true to validate in a single scan, false to run two passes (the default)
+     */
+    public void setSinglePass(boolean singlePass) {
+        this.singlePass = singlePass;
+    }
+
+    /**
+     * Set the listener the metrics of the file and its errors are passed to once it's parsed.
+     * Without a listener, the metrics are only counted - see {@link #getMetrics()}.
+     *
+     * @param listener the listener, or null for none (the default)
+     */
+    public void setListener(ParserListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the metrics of the file, complete once it was parsed
+     *
+     * @return the metrics of the file
+     */
+    public ParserMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns whether all the errors in the file are collected
+     *
+     * @return true if collecting all the errors, false if stopping at the first one
+     */
+    public boolean isCollectAllErrors() {
+        return collectAllErrors;
+    }
+
+    /**
+     * Parse the file.
+     *
+     * @throws ParserException In case of a parsing error in any of the components. When
+     *                         collecting all the errors, the first one is thrown after the whole
+     *                         file was parsed, and all of them are in {@link #getDiagnostics()}.
+     */
     public void parse() throws ParserException {
+        recording = FlightRecorder.isInitialized();
+        ParseEvent parseEvent = null;
+        if (recording) {
+            parseEvent = new ParseEvent();
+            parseEvent.begin();
+            methodEventsEnabled = new MethodEvent().isEnabled();
+        }
+        boolean valid = false;
+        try {
+            parseFile();
+            valid = true;
+        } catch (ParserException error) {
+            reportRejections(error);
+            throw error;
+        } finally {
+            if (recording && parseEvent.shouldCommit()) {
+                commitParseEvent(parseEvent, valid);
+            }
+            if (listener != null) {
+                listener.parsed(metrics);
+            }
+        }
+    }
+
+    /**
+     * Record the Flight Recorder event of parsing the file
+     *
+     * @param event the event, begun when parsing started
+     * @param valid whether the file is valid
+     */
+    private void commitParseEvent(ParseEvent event, boolean valid) {
+        event.path = inputFilename;
+        event.lineCount = metrics.getLineCount();
+        event.valid = valid;
+        try {
+            event.fileSize = Files.size(Paths.get(inputFilename));
+        } catch (IOException | InvalidPathException error) {
+            // The file can't be read or the code isn't a file, and the event says so
+        }
+        event.commit();
+    }
+
+    /**
+     * Read and parse the file, timing every phase
+     *
+     * @throws ParserException In case of a parsing error in any of the components
+     */
+    private void parseFile() throws ParserException {
+        if (recording) {
+            passEvent = new PassEvent();
+            passEvent.begin();
+        }
+        long phaseStart = System.nanoTime();
         try {
             readCodeLines();
+            metrics.setLineCount(allLines.lineCount());
         } catch (IOException error) {
             throw new ParserException(IO_ERROR_MESSAGE, ParserException.IO_ERROR);
+        } finally {
+            phaseStart = endPhase(ParserPhase.READ, phaseStart);
+        }
+        if (singlePass && !collectAllErrors && !parallel) {
+            try {
+                fusedPass();
+            } finally {
+                endPhase(ParserPhase.SINGLE_PASS, phaseStart);
+            }
+            return;
+        }
+        try {
+            globalsMethodsPass();
+        } finally {
+            phaseStart = endPhase(ParserPhase.GLOBALS_PASS, phaseStart);
+        }
+        try {
+            if (isParallelPass()) {
+                parallelVerifyPass();
+            } else {
+                verifyPass(0, allLines.lineCount());
+            }
+        } finally {
+            endPhase(ParserPhase.VERIFY_PASS, phaseStart);
+        }
+        if (!diagnostics.isEmpty()) {
+            diagnostics.sort(Comparator.comparingInt(Diagnostic::getLine));
+            throw diagnostics.get(0).getError();
+        }
+    }
+
+    /**
+     * Add the time of a phase to the metrics and record its event, starting the event of
+     * the next phase
+     *
+     * @param phase      the phase that ended
+     * @param phaseStart the nano time the phase started at
+     * @return the nano time the phase ended at
+     */
+    private long endPhase(ParserPhase phase, long phaseStart) {
+        long phaseEnd = System.nanoTime();
+        metrics.addPhase(phase, phaseEnd - phaseStart);
+        if (recording) {
+            if (passEvent.shouldCommit()) {
+                passEvent.phase = phase.name();
+                passEvent.commit();
+            }
+            passEvent = new PassEvent();
+            passEvent.begin();
+        }
+        return phaseEnd;
+    }
+
+    /**
+     * Report the errors the file was rejected with to the listener and the Flight Recorder
+     *
+     * @param error the error thrown
+     */
+    private void reportRejections(ParserException error) {
+        if (diagnostics.isEmpty()) {
+            reportRejection(error, currentLine);
+            return;
+        }
+        for (Diagnostic diagnostic : diagnostics) {
+            reportRejection(diagnostic.getError(), diagnostic.getLine());
+        }
+    }
+
+    /**
+     * Report a single error the file was rejected with
+     *
+     * @param error the error
+     * @param line  the line of the error
+     */
+    private void reportRejection(ParserException error, int line) {
+        if (listener != null) {
+            listener.rejected(error, line);
+        }
+        if (!recording) {
+            return;
+        }
+        RejectionEvent event = new RejectionEvent();
+        if (event.shouldCommit()) {
+            event.exceptionClass = error.getClass();
+            event.message = error.getMessage();
+            event.line = line;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the errors recorded when collecting all of them
+     *
+     * @return the errors found, sorted by line
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Validate the file, returning the result instead of throwing.
+     *
+     * @return the validation result, with the line of the error if the file is invalid
+     */
+    public ValidationResult validate() {
+        try {
+            parse();
+            return ValidationResult.valid();
+        } catch (ParserException error) {
+            if (!diagnostics.isEmpty()) {
+                return ValidationResult.invalid(diagnostics);
+            }
+            return ValidationResult.invalid(error, currentLine);
         }
-        globalsMethodsPass();
-        verifyPass();
     }
 
     /**
@@ -119,11 +567,12 @@ public class Parser {
      * @throws IOException In case an I/O exception occured when reading the file
      */
     private void readCodeLines() throws IOException {
-        File inputFile = new File(inputFilename);
-        BufferedReader reader = new BufferedReader(new FileReader(inputFile));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            allLines.add(line);
+        if (sourceLines != null) {
+            allLines = sourceLines;
+        } else if (memoryMapped) {
+            allLines = new MappedSourceLines(Paths.get(inputFilename));
+        } else {
+            allLines = AsciiSourceLines.read(Paths.get(inputFilename));
         }
     }
 
@@ -133,34 +582,134 @@ public class Parser {
      * So we do this initial first pass before parsing the bodies of subroutines.
      * This pass also checks balancing - throws an error if the {} aren't balanced,
      * and that no methods calls happen on the global scope.
+     * Every line is recorded in the line table, so it's not tokenized and classified again -
+     * except that the tokens aren't kept for memory mapped files, which keep the heap small,
+     * nor past the bound of the table on the kept tokens.
      */
     private void globalsMethodsPass() throws ParserException {
-        VariableVerifier globalVariableVerifier = new VariableVerifier(parentScope, parentScope);
-        for (String line : allLines) {
-            if (isEmptyOrComment(line))
+        startGlobals();
+        lineTable = new LineTable(!memoryMapped);
+        for (int lineIndex = 0; lineIndex < allLines.lineCount(); lineIndex++) {
+            currentLine = lineIndex + 1;
+            CharSequence line = allLines.line(lineIndex);
+            Lexer.tokenize(line, tokens);
+            LineKind kind = LineKind.of(tokens, isBadComment(line));
+            metrics.countLine(kind);
+            lineTable.add(tokens, kind, bracketStack.size());
+            if (isEmptyOrComment())
                 continue;
-            line = line.trim();
             if (inGlobalScope()) {
-                if (MethodSignature.isMethodSignatureStart(line)) {
-                    MethodSignature.isMethodSignatureLegal(line);
-                }
-                if (line.endsWith(BLOCK_BODY_LINE_END)) {
-                    // Can't call methods in the global scope
-                    if (MethodCall.isMethodCallStart(line)) {
-                        throw new MethodCallException(GLOBAL_METHOD_CALL_ERROR);
-                    }
-                    VariableParser.parseVariablesLine(line, globalVariableVerifier, parentScope);
+                try {
+                    parseGlobalLine();
+                } catch (ParserException error) {
+                    report(error);
                 }
             }
-            if (line.endsWith(SCOPE_START_LINE_END)) {
+            if (tokens.last() == TokenType.LEFT_BRACE) {
                 onNewScopeBracket();
-            } else if (line.endsWith(SCOPE_END_LINE_END)) {
+            } else if (tokens.last() == TokenType.RIGHT_BRACE) {
                 if (!verifyScopeCloseBracket()) {
-                    throw new BracketsBalanceException();
+                    report(new BracketsBalanceException());
                 }
             }
         }
-        globalScope = parentScope.clone();
+        endGlobals();
+    }
+
+    /**
+     * Start the first pass with an empty scope of globals
+     */
+    void startGlobals() {
+        globals = new VariableScope();
+        globalVariableVerifier = new VariableVerifier(globals);
+    }
+
+    /**
+     * End the first pass, keeping the declared globals as the outermost scope of every method
+     */
+    void endGlobals() {
+        globalScope = globals.clone();
+        methodTable = methodSignatures.table();
+        // The second pass matches the brackets again, from an empty stack - the brackets a file
+        // ending inside a block leaves open would make it see every method as nested
+        bracketStack.clear();
+    }
+
+    /**
+     * Parse a line in the global scope in the first pass - registering a method signature,
+     * or declaring global variables.
+     *
+     * @throws ParserException If the line is invalid
+     */
+    private void parseGlobalLine() throws ParserException {
+        if (MethodSignature.isMethodSignatureStart(tokens)) {
+            methodSignatures.isMethodSignatureLegal(tokens);
+        }
+        if (tokens.last() == TokenType.SEMICOLON) {
+            // Can't call methods in the global scope
+            if (MethodCall.isMethodCallStart(tokens, methodSignatures)) {
+                throw new MethodCallException(GLOBAL_METHOD_CALL_ERROR);
+            }
+            VariableParser.parseVariablesLine(tokens, globalVariableVerifier, globals);
+        }
+    }
+
+    /**
+     * Parse a single line of the global scope in the first pass, between {@link #startGlobals()}
+     * and {@link #endGlobals()}. Used by a {@link ValidationSession}, which tracks the blocks
+     * of the file itself and passes only the lines outside of them, and the first line of each.
+     *
+     * @param line the global line
+     * @throws ParserException If the line is invalid, or it's a '}' without a matching '{'
+     */
+    void parseGlobalLine(CharSequence line) throws ParserException {
+        Lexer.tokenize(line, tokens);
+        if (isEmptyOrComment()) {
+            return;
+        }
+        parseGlobalLine();
+        if (tokens.last() == TokenType.RIGHT_BRACE) {
+            throw new BracketsBalanceException();
+        }
+    }
+
+    /**
+     * Run the second pass alone over some lines, after the first pass was done for the whole
+     * file. Used by a {@link ValidationSession} to verify a single block of the global scope -
+     * every such block starts from a fresh copy of the globals, so it can be verified on its own.
+     *
+     * @param lines the lines to verify
+     * @return the validation result, with the line of the error relative to the given lines
+     */
+    ValidationResult verifyLines(SourceLines lines) {
+        allLines = lines;
+        lineTable = null;
+        resetVerifyState();
+        currentLine = ValidationResult.NO_LINE;
+        try {
+            verifyPass(0, lines.lineCount());
+            return ValidationResult.valid();
+        } catch (ParserException error) {
+            return ValidationResult.invalid(error, currentLine);
+        }
+    }
+
+    /**
+     * Handle an error found in the current line - throw it, or when collecting all the
+     * errors, record it and let the parsing continue.
+     *
+     * @param error the error found
+     * @throws ParserException the error, unless collecting all the errors
+     */
+    private void report(ParserException error) throws ParserException {
+        if (!collectAllErrors) {
+            throw error;
+        }
+        if (bracketStack.size() >= skippedScopeDepth || reportedLines.get(currentLine)) {
+            return;
+        }
+        reportedLines.set(currentLine);
+        diagnostics.add(new Diagnostic(error, currentLine));
     }
 
     /**
@@ -204,92 +753,340 @@ public class Parser {
         return bracketStack.size() > ONE_LEVEL_DEEP_NESTING;
     }
 
+    /**
+     * Returns true if the second pass should run in parallel - in the parallel mode, for a
+     * large enough file that splits into more than a single part, when stopping at the first error.
+     *
+     * @return true to run the parallel pass
+     */
+    private boolean isParallelPass() {
+        return parallel && !collectAllErrors && allLines.lineCount() >= PARALLEL_MIN_LINES
+                && chunkStarts().size() > 2;
+    }
+
+    /**
+     * The main pass run in parallel. The file is split to parts at the ends of top level blocks,
+     * each part verified by its own parser on the common fork join pool. Once a part fails,
+     * the parts after it are skipped, and the error of the first failing part is thrown -
+     * the same error the serial pass would throw.
+     *
+     * @throws ParserException the first error in the file
+     */
+    private void parallelVerifyPass() throws ParserException {
+        ArrayList<Integer> chunkStarts = chunkStarts();
+        int chunkCount = chunkStarts.size() - 1;
+        ValidationResult[] results = new ValidationResult[chunkCount];
+        ParserMetrics[] chunkMetrics = new ParserMetrics[chunkCount];
+        AtomicInteger firstFailedChunk = new AtomicInteger(NO_FAILED_CHUNK);
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            if (chunk > firstFailedChunk.get()) {
+                return;
+            }
+            Parser worker = new Parser(this);
+            results[chunk] = worker.verifyChunk(chunkStarts.get(chunk), chunkStarts.get(chunk + 1));
+            chunkMetrics[chunk] = worker.metrics;
+            if (!results[chunk].isValid()) {
+                firstFailedChunk.accumulateAndGet(chunk, Math::min);
+            }
+        });
+        for (ParserMetrics part : chunkMetrics) {
+            if (part != null) {
+                metrics.addOperations(part);
+            }
+        }
+        int failed = firstFailedChunk.get();
+        if (failed != NO_FAILED_CHUNK) {
+            currentLine = results[failed].getLine();
+            throw results[failed].getError();
+        }
+    }
+
+    /**
+     * Split the file into parts of at least MIN_CHUNK_LINES lines, about CHUNKS_PER_CORE for
+     * every core, at lines in the global scope.
+     *
+     * @return the index of the first line of every part, followed by the number of lines
+     */
+    private ArrayList<Integer> chunkStarts() {
+        int lineCount = allLines.lineCount();
+        int targetChunks = Runtime.getRuntime().availableProcessors() * CHUNKS_PER_CORE;
+        int chunkLines = Math.max(MIN_CHUNK_LINES, lineCount / targetChunks);
+        ArrayList<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int lineIndex = chunkLines; lineIndex < lineCount; lineIndex++) {
+            if (lineIndex - starts.get(starts.size() - 1) >= chunkLines && lineTable.depth(lineIndex) == 0) {
+                starts.add(lineIndex);
+            }
+        }
+        starts.add(lineCount);
+        return starts;
+    }
+
+    /**
+     * Verify a part of the file starting in the global scope, on a parser created for it
+     *
+     * @param startLine the index of the first line of the part
+     * @param endLine   the index after the last line of the part
+     * @return the validation result, with the line of the error in the file
+     */
+    private ValidationResult verifyChunk(int startLine, int endLine) {
+        try {
+            verifyPass(startLine, endLine);
+            return ValidationResult.valid();
+        } catch (ParserException error) {
+            return ValidationResult.invalid(error, currentLine);
+        }
+    }
+
     /**
      * The main pass, verifying the validity of the code. Done after the
      * globals pass so that the methods and globals are populated and ready
-     * for the subroutines themselves.
+     * for the subroutines themselves. Verifies a range of lines that starts in the
+     * global scope - the whole file, unless parts of it are verified in parallel.
      *
+     * @param startLine the index of the first line to verify
+     * @param endLine   the index after the last line to verify
      * @throws ParserException if we've encountered an error parsing any line,
      *                         or when we finish the program but we still have an unterminated '{'.
      */
-    private void verifyPass() throws ParserException {
-        currentScope = new VariableScope();
-        subroutineVerifier = new VariableVerifier(parentScope, currentScope);
-        for (String line : allLines) {
-            if (BAD_COMMENT_LINE.matcher(line).find()) {
-                throw new ParserException(INVALID_LINE_ERROR_MESSAGE);
-            }
-            if (!isEmptyOrComment(line)) {
-                line = line.trim();
-                parseLine(line);
-            }
-            prevLine = line;
+    private void verifyPass(int startLine, int endLine) throws ParserException {
+        // The scope of the globals is copied when entering a top level block
+        currentScope = null;
+        subroutineVerifier = new VariableVerifier(currentScope);
+        for (int lineIndex = startLine; lineIndex < endLine; lineIndex++) {
+            currentLine = lineIndex + 1;
+            verifyLine(loadLine(lineIndex));
         }
         // When we finished parsing we're still inside a method, so throw an unterminated error
         if (!inGlobalScope()) {
-            throw new BracketsBalanceException();
+            skippedScopeDepth = NOT_SKIPPING;
+            report(new BracketsBalanceException());
+        }
+    }
+
+    /**
+     * Read a line for the main pass into the parser tokens - from the line table if it kept the
+     * tokens, otherwise by tokenizing it. A bad comment isn't tokenized, since it's rejected
+     * without looking at its tokens.
+     *
+     * @param lineIndex the line index
+     * @return the line kind
+     */
+    private LineKind loadLine(int lineIndex) {
+        CharSequence line = allLines.line(lineIndex);
+        if (lineTable != null && lineTable.hasTokens(lineIndex)) {
+            lineTable.loadTokens(lineIndex, line, tokens);
+            return lineTable.kind(lineIndex);
+        }
+        if (isBadComment(line)) {
+            return LineKind.INVALID;
+        }
+        Lexer.tokenize(line, tokens);
+        return lineTable != null ? lineTable.kind(lineIndex) : LineKind.of(tokens, false);
+    }
+
+    /**
+     * Verify a single line in the main pass, already read into the parser tokens.
+     *
+     * @param kind the line kind
+     * @throws ParserException if the line is invalid, unless collecting all the errors
+     */
+    private void verifyLine(LineKind kind) throws ParserException {
+        try {
+            parseLine(kind);
+        } catch (MethodDeclarationException error) {
+            report(error);
+            // Recover after the body of the method, whose parameters are unknown
+            skippedScopeDepth = Math.min(skippedScopeDepth, bracketStack.size());
+        } catch (ParserException error) {
+            report(error);
         }
+        prevLineIsReturn = kind == LineKind.RETURN;
     }
 
     /**
-     * Parse and validate a single code line.
+     * Reset the state of the main pass, before verifying lines that start in the global scope
+     */
+    private void resetVerifyState() {
+        bracketStack.clear();
+        scopeStack.clear();
+        prevLineIsReturn = false;
+        methodEvent = null;
+    }
+
+    /**
+     * Validate the file in a single scan, stopping at the first error. Every line is first
+     * handled like in the globals pass and then verified like in the main pass. The file is
+     * split to top level segments - a global line, or a block from the line opening it in the
+     * global scope to the line closing it - and each is verified against a copy of the globals
+     * declared up to its start. Later global lines can only declare more globals and methods, or
+     * assign globals, so a segment valid against the globals declared so far stays valid, while
+     * one that fails may only use a method or global declared later - it's verified again at the
+     * end of the file. An error of the globals pass is thrown as soon as it's found, since the
+     * two passes report it before any error of the main pass. If a method is declared twice,
+     * the later declaration wins, so the whole main pass runs again at the end of the file.
      *
-     * @param line The line to parse and validate
+     * @throws ParserException the error the two passes would throw
+     */
+    private void fusedPass() throws ParserException {
+        startGlobals();
+        // Blocks are verified against the globals declared so far, copied when they're entered
+        globalScope = globals;
+        subroutineVerifier = new VariableVerifier(null);
+        methodTable = methodSignatures.table();
+        // the start and end line indexes of every segment to verify again
+        ArrayList<Integer> deferredSegments = new ArrayList<>();
+        boolean methodRedeclared = false;
+        int depth = 0;
+        int segmentStart = 0;
+        boolean segmentFailed = false;
+        int lineCount = allLines.lineCount();
+        for (int lineIndex = 0; lineIndex < lineCount; lineIndex++) {
+            currentLine = lineIndex + 1;
+            CharSequence line = allLines.line(lineIndex);
+            Lexer.tokenize(line, tokens);
+            LineKind kind = LineKind.of(tokens, isBadComment(line));
+            metrics.countLine(kind);
+            boolean isCode = !isEmptyOrComment();
+            if (depth == 0) {
+                segmentStart = lineIndex;
+                segmentFailed = false;
+                resetVerifyState();
+                if (isCode) {
+                    methodRedeclared |= isMethodRedeclaration();
+                    parseGlobalLine();
+                }
+            }
+            if (isCode && tokens.last() == TokenType.LEFT_BRACE) {
+                depth++;
+            } else if (isCode && tokens.last() == TokenType.RIGHT_BRACE) {
+                if (depth == 0) {
+                    throw new BracketsBalanceException();
+                }
+                depth--;
+            }
+            if (!segmentFailed) {
+                try {
+                    verifyLine(kind);
+                } catch (ParserException error) {
+                    segmentFailed = true;
+                }
+            }
+            if (depth == 0 && segmentFailed) {
+                deferredSegments.add(segmentStart);
+                deferredSegments.add(lineIndex + 1);
+            }
+        }
+        // The last block isn't closed, verify it again to find its first error
+        if (depth > 0) {
+            deferredSegments.add(segmentStart);
+            deferredSegments.add(lineCount);
+        }
+        endGlobals();
+        if (methodRedeclared) {
+            resetVerifyState();
+            verifyPass(0, lineCount);
+            return;
+        }
+        for (int segment = 0; segment < deferredSegments.size(); segment += 2) {
+            resetVerifyState();
+            verifyPass(deferredSegments.get(segment), deferredSegments.get(segment + 1));
+        }
+    }
+
+    /**
+     * Returns true if the current line declares a method that was already declared
+     *
+     * @return true if the line is the signature of a declared method
+     */
+    private boolean isMethodRedeclaration() {
+        return MethodSignature.isMethodSignatureStart(tokens) && tokens.size() > 1
+                && methodSignatures.methodCallNameExist(tokens.symbol(1));
+    }
+
+    /**
+     * Parse and validate a single code line, already tokenized into the parser tokens.
+     *
+     * @param kind the line kind
      * @throws ParserException Thrown if the line is invalid
      */
-    private void parseLine(String line) throws ParserException {
-        if (line.endsWith(BLOCK_BODY_LINE_END)) {
-            // Don't reparse global scope ";" lines
-            if (!inGlobalScope())
-                parseBlockBodyLine(line);
-        } else if (line.endsWith(SCOPE_START_LINE_END)) {
-            parseScopeStartLine(line);
-        } else if (line.equals(SCOPE_END_LINE_END)) {
-            parseScopeExitLine(line);
-        } else {
-            throw new ParserException(INVALID_LINE_ERROR_MESSAGE);
+    private void parseLine(LineKind kind) throws ParserException {
+        switch (kind) {
+            case BLANK:
+            case RETURN:
+                // A return is not really handled here, see scope end.
+                break;
+            case DECLARATION:
+            case ASSIGNMENT:
+            case CALL:
+                // Don't reparse global scope ";" lines
+                if (!inGlobalScope())
+                    parseBlockBodyLine(kind);
+                break;
+            case CLOSE_BRACE:
+                parseScopeExitLine();
+                break;
+            case INVALID:
+                throw new ParserException(INVALID_LINE_ERROR_MESSAGE);
+            default:
+                parseScopeStartLine(kind);
         }
     }
 
     /**
      * Parse a line that ends with a ";", aka not a line that starts
-     * or ends a block. The possible lines are variable assignment/declaration,
-     * method call, or return.
+     * or ends a block. The possible lines are variable assignment/declaration
+     * or method call.
      *
-     * @param line The line to parse and validate
+     * @param kind the line kind
      * @throws ParserException If the line is invalid
      */
-    private void parseBlockBodyLine(String line) throws ParserException {
-        if (MethodCall.isMethodCallStart(line)) {
-            MethodCall.handleMethodCall(line, subroutineVerifier);
-        } else if (Return.isReturn(line)) {
-            // Not really handled here, see scope end.
+    private void parseBlockBodyLine(LineKind kind) throws ParserException {
+        if (kind == LineKind.CALL && isDeclaredMethodCall()) {
+            metrics.countMethodCallCheck();
+            MethodCall.handleMethodCall(tokens, subroutineVerifier, methodTable);
         } else {
-            // Not method call or return - must be a variable line
-            VariableParser.parseVariablesLine(line, subroutineVerifier, currentScope);
+            // Not method call - must be a variable line
+            VariableParser.parseVariablesLine(tokens, subroutineVerifier, currentScope);
         }
     }
 
+    /**
+     * Returns true if the current line, of the form of a call, calls a declared method.
+     * In the single pass the methods are still being declared, and the method table grows
+     * as they are, so it has every method declared so far.
+     *
+     * @return true if the called method was declared
+     */
+    private boolean isDeclaredMethodCall() {
+        int methodSymbol = tokens.symbol(0);
+        return methodTable.contains(methodSymbol);
+    }
+
     /**
      * Parse a line that starts a new scope - a while, if or a method
      * declaration
      *
-     * @param line The line to parse
+     * @param kind the line kind
      * @throws ParserException Thrown if the line is invalid
      */
-    private void parseScopeStartLine(String line) throws ParserException {
+    private void parseScopeStartLine(LineKind kind) throws ParserException {
         enterScope();
-        if (IfBlock.isIfStart(line)) {
-            IfBlock.handleConditions(line, subroutineVerifier);
-        } else if (WhileBlock.isWhileBlockStart(line)) {
-            WhileBlock.handleConditions(line, subroutineVerifier);
-        } else if (MethodSignature.isMethodSignatureStart(line)) {
+        if (kind == LineKind.IF) {
+            IfBlock.handleConditions(tokens, subroutineVerifier);
+        } else if (kind == LineKind.WHILE) {
+            WhileBlock.handleConditions(tokens, subroutineVerifier);
+        } else if (kind == LineKind.METHOD_HEADER) {
             // Ensure that we're not already in a method
-            ArrayList<Variable> parameters = MethodSignature.isMethodSignatureLegal(line);
+            ArrayList<Variable> parameters = methodSignatures.getMethodParameters(tokens);
             if (inNestedScope()) {
                 throw new NestedMethodException();
             }
-            currentScope.mergeWithScope(VariableScope.fromMethodParameters(parameters));
+            currentScope.addParameters(parameters);
+            metrics.countScopeMerge(parameters.size());
+            if (methodEventsEnabled) {
+                beginMethodEvent();
+            }
         } else {
             throw new ParserException(INVALID_LINE_ERROR_MESSAGE);
         }
@@ -300,68 +1097,110 @@ public class Parser {
      * brackets are indeed balanced, and that if we've exited a method we had a return
      * as the previous line
      *
-     * @param line The line to parse
      * @throws BracketsBalanceException Thrown In case we have a '}' without a matching '{'.
      * @throws NoReturnInMethodEnd      Thrown if we don't have a return in the end of the method.
      */
-    private void parseScopeExitLine(String line) throws BracketsBalanceException, NoReturnInMethodEnd {
+    private void parseScopeExitLine() throws BracketsBalanceException, NoReturnInMethodEnd {
         exitScope();
+        if (methodEvent != null && inGlobalScope()) {
+            commitMethodEvent();
+        }
         // If we've just exited to the global scope, it means we've exited a method.
         // so we check that the last line we encountered was a return.
-        if (inGlobalScope() && !Return.isReturn(prevLine)) {
+        if (inGlobalScope() && !prevLineIsReturn) {
             throw new NoReturnInMethodEnd();
         }
     }
 
+    /**
+     * Start the Flight Recorder event of verifying the method whose signature is the current line
+     */
+    private void beginMethodEvent() {
+        methodEvent = new MethodEvent();
+        methodEvent.begin();
+        methodEvent.method = tokens.text(1);
+        methodEvent.startLine = currentLine;
+        methodEvent.maxDepth = bracketStack.size();
+    }
+
+    /**
+     * Record the event of the method whose closing brace is the current line
+     */
+    private void commitMethodEvent() {
+        methodEvent.endLine = currentLine;
+        methodEvent.commit();
+        methodEvent = null;
+    }
+
     /**
      * Called when entering a scope - pushes the bracket to the stack,
-     * merging the parent scope with the current one, creating a new scope
-     * and updating the verifier with the fresh scope information.
+     * creating a new scope nested in the current one and updating the verifier
+     * with the fresh scope information. Nothing is copied, so this is O(1) - except
+     * when entering a top level block, which starts from a fresh copy of the global scope.
      */
     private void enterScope() {
+        if (inGlobalScope()) {
+            methodGlobals = globalScope.cloneReusing(methodGlobals);
+            currentScope = new VariableScope(methodGlobals);
+            metrics.countScopeClone(globalScope.size());
+        }
+        metrics.countScopeEnter();
         onNewScopeBracket();
-        // Merge the parent scope with the current scope, making it the new parent scope,
-        // and create a new current scope. Save the parent scope to restore at the scope
-        // end.
-        parentScope = currentScope.mergeWithScope(parentScope);
-        scopeStack.push(parentScope);
-        currentScope = new VariableScope();
-        subroutineVerifier.updateScopes(parentScope, currentScope);
+        if (methodEvent != null) {
+            methodEvent.maxDepth = Math.max(methodEvent.maxDepth, bracketStack.size());
+        }
+        // Save the enclosing scope to return to at the scope end.
+        scopeStack.push(currentScope);
+        currentScope = new VariableScope(currentScope);
+        subroutineVerifier.updateScope(currentScope);
     }
 
     /**
-     * Exit the scope - popping the brackets stack, popping the last parent
-     * scope from the stack making it the new parent, and updating the
-     * verifier with the fresh scope info.
-     * When exiting from a method, the parent scope is the global scope - to
-     * throw away modifications to the scope done in the method body.
+     * Exit the scope - popping the brackets stack, dropping the variables declared
+     * since the matching scope start and continuing in a fresh scope nested in the
+     * enclosing one, updating the verifier with the fresh scope info.
+     * When exiting from a method, the copy of the global scope it started from is dropped -
+     * to throw away modifications to the scope done in the method body.
      *
      * @throws BracketsBalanceException Thrown In case we have a '}' without a matching '{'.
      */
     private void exitScope() throws BracketsBalanceException {
         if (!verifyScopeCloseBracket())
             throw new BracketsBalanceException();
-        // Clear what was added to the scope we're just exiting, and restore the parent scope
-        currentScope = new VariableScope();
-        parentScope = scopeStack.pop();
-        // Discard modifications done by the subroutine to the global scope by
-        // restoring the global
+        VariableScope enclosingScope = scopeStack.pop();
+        if (bracketStack.size() < skippedScopeDepth) {
+            skippedScopeDepth = NOT_SKIPPING;
+        }
+        // Discard modifications done by the subroutine to the global scope - the next
+        // method starts from a fresh copy of the globals
         if (inGlobalScope()) {
-            parentScope = globalScope.clone();
+            currentScope = null;
+        } else {
+            currentScope = currentScope.exitTo(enclosingScope);
         }
-        subroutineVerifier.updateScopes(parentScope, currentScope);
+        subroutineVerifier.updateScope(currentScope);
     }
 
     /**
-     * A simple helper for checking if a line has only spaces or it's a comment,
+     * A simple helper for checking if the current line has only spaces or it's a comment,
      * indicating we should skip it when parsing
      *
-     * @param line The line to check
      * @return true if the line has only spaces or it's a comment
      */
-    private boolean isEmptyOrComment(String line) {
-        Matcher emptyLineMatcher = EMPTY_LINE.matcher(line);
-        Matcher commentLineMatcher = COMMENT_LINE.matcher(line);
-        return emptyLineMatcher.matches() || commentLineMatcher.matches();
+    private boolean isEmptyOrComment() {
+        return tokens.size() == 0 || tokens.type(0) == TokenType.COMMENT;
+    }
+
+    /**
+     * Lines ending with "//" (other than the "//" line itself) aren't valid, even if they
+     * are comments.
+     *
+     * @param line The line to check
+     * @return true if the line ends with a "//"
+     */
+    private boolean isBadComment(CharSequence line) {
+        int length = line.length();
+        return length > COMMENT_START.length() && line.charAt(length - 1) == COMMENT_START.charAt(1)
+                && line.charAt(length - 2) == COMMENT_START.charAt(0);
     }
 }
\ No newline at end of file
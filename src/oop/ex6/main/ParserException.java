@@ -6,10 +6,13 @@ package oop.ex6.main;
  * to indicate different parsing errors. Other than the error message, this
  * class also has the error code, printed to stdout at the end of the program
  * when catching the exception - 1 for invalid code, 2 for an I/O error.
+ * Rejecting invalid code is an expected result rather than a bug, so these exceptions
+ * don't capture a stack trace unless the oop.ex6.stackTraces system property is true.
  */
 public class ParserException extends Exception {
     private static final int ILLEGAL_CODE_ERROR = 1;
     public static final int IO_ERROR = 2;
+    private static final boolean CAPTURE_STACK_TRACE = Boolean.getBoolean("oop.ex6.stackTraces");
 
     private int errorCode;
 
@@ -18,7 +21,7 @@ public class ParserException extends Exception {
     }
 
     public ParserException(String message, int errorCode) {
-        super(message);
+        super(message, null, false, CAPTURE_STACK_TRACE);
         this.errorCode = errorCode;
     }
 
@@ -0,0 +1,28 @@
+package oop.ex6.main;
+
+/**
+ * Receives the metrics of the files a {@link Parser} parses, so they can be passed on to a
+ * metrics registry - every callback maps to counters and timers by name, without the parser
+ * depending on any metrics library. All the methods do nothing by default, so a listener
+ * implements only the ones it uses. Called on the thread that parsed the file, after it was
+ * parsed - a listener shared by parsers running concurrently must be thread safe.
+ */
+public interface ParserListener {
+    /**
+     * Called once a file was parsed, valid or not
+     *
+     * @param metrics the metrics of the file
+     */
+    default void parsed(ParserMetrics metrics) {
+    }
+
+    /**
+     * Called for every error a file was rejected with, before {@link #parsed(ParserMetrics)} -
+     * once when stopping at the first error, or for every error found when collecting all of them
+     *
+     * @param error the error
+     * @param line  the 1 based line of the error, or {@link Diagnostic#NO_LINE}
+     */
+    default void rejected(ParserException error, int line) {
+    }
+}
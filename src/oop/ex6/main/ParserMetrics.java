@@ -0,0 +1,165 @@
+package oop.ex6.main;
+
+/**
+ * The metrics of parsing a single file - the time of every phase, the lines of every kind, and
+ * counts of the hot operations. Counted by the parser as plain fields whether or not a
+ * {@link ParserListener} is attached, so counting costs a few increments per line.
+ */
+public class ParserMetrics {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final long[] phaseNanos = new long[ParserPhase.values().length];
+    private final int[] lineKinds = new int[LineKind.values().length];
+    private int lineCount;
+    private int scopeEnters;
+    private int scopeMerges;
+    private int scopeClones;
+    private long variablesCopied;
+    private int methodCallChecks;
+
+    /**
+     * @param phase the phase
+     * @return the nanoseconds spent in the phase
+     */
+    public long getPhaseNanos(ParserPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return the nanoseconds spent in all the phases
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : phaseNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of lines in the file
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return the lines parsed per second, over all the phases
+     */
+    public double getLinesPerSecond() {
+        long total = getTotalNanos();
+        return total == 0 ? 0 : lineCount * NANOS_PER_SECOND / total;
+    }
+
+    /**
+     * @param kind a line kind
+     * @return the number of lines of the kind in the file
+     */
+    public int getLineCount(LineKind kind) {
+        return lineKinds[kind.ordinal()];
+    }
+
+    /**
+     * @return the number of scopes entered, one for every block
+     */
+    public int getScopeEnters() {
+        return scopeEnters;
+    }
+
+    /**
+     * @return the number of method parameter scopes merged into method scopes
+     */
+    public int getScopeMerges() {
+        return scopeMerges;
+    }
+
+    /**
+     * @return the number of copies of the global scope, one for every top level block
+     */
+    public int getScopeClones() {
+        return scopeClones;
+    }
+
+    /**
+     * @return the number of variables copied by scope clones and merges
+     */
+    public long getVariablesCopied() {
+        return variablesCopied;
+    }
+
+    /**
+     * @return the number of method calls checked against their signatures
+     */
+    public int getMethodCallChecks() {
+        return methodCallChecks;
+    }
+
+    /**
+     * @param phase the phase
+     * @param nanos the nanoseconds spent in it
+     */
+    void addPhase(ParserPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * @param lineCount the number of lines in the file
+     */
+    void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * @param kind the kind of a line read by the first pass
+     */
+    void countLine(LineKind kind) {
+        lineKinds[kind.ordinal()]++;
+    }
+
+    /**
+     * Count a scope entered
+     */
+    void countScopeEnter() {
+        scopeEnters++;
+    }
+
+    /**
+     * Count a method parameters scope merged
+     *
+     * @param variables the number of variables merged
+     */
+    void countScopeMerge(int variables) {
+        scopeMerges++;
+        variablesCopied += variables;
+    }
+
+    /**
+     * Count a copy of the global scope
+     *
+     * @param variables the number of variables cloned
+     */
+    void countScopeClone(int variables) {
+        scopeClones++;
+        variablesCopied += variables;
+    }
+
+    /**
+     * Count a method call checked
+     */
+    void countMethodCallCheck() {
+        methodCallChecks++;
+    }
+
+    /**
+     * Add the operations counted by a parser verifying a part of the file
+     *
+     * @param part the metrics of the part
+     */
+    void addOperations(ParserMetrics part) {
+        scopeEnters += part.scopeEnters;
+        scopeMerges += part.scopeMerges;
+        scopeClones += part.scopeClones;
+        variablesCopied += part.variablesCopied;
+        methodCallChecks += part.methodCallChecks;
+    }
+}
@@ -0,0 +1,15 @@
+package oop.ex6.main;
+
+/**
+ * The phases of parsing a file, timed in the {@link ParserMetrics} of the file
+ */
+public enum ParserPhase {
+    // reading the file lines, or mapping the file
+    READ,
+    // the first pass, declaring the globals and the methods
+    GLOBALS_PASS,
+    // the main pass, verifying the method bodies - serially or in parallel
+    VERIFY_PASS,
+    // both passes fused into a single scan, in the single pass mode
+    SINGLE_PASS
+}
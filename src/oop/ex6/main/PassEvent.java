@@ -0,0 +1,22 @@
+package oop.ex6.main;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for a single phase of parsing a file - see {@link ParserPhase}
+ */
+@Name(PassEvent.NAME)
+@Label("Sjava Parser Pass")
+@Category({"Sjava", "Parser"})
+@StackTrace(false)
+@Description("A phase of parsing an s-java file - reading it, or one of the passes over its lines")
+final class PassEvent extends jdk.jfr.Event {
+    static final String NAME = "oop.ex6.Pass";
+
+    @Label("Phase")
+    String phase;
+}
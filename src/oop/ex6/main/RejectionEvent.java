@@ -0,0 +1,28 @@
+package oop.ex6.main;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for an error a file was rejected with
+ */
+@Name(RejectionEvent.NAME)
+@Label("Sjava Rejection")
+@Category({"Sjava", "Parser"})
+@StackTrace(false)
+@Description("An error an s-java file was rejected with")
+final class RejectionEvent extends jdk.jfr.Event {
+    static final String NAME = "oop.ex6.Rejection";
+
+    @Label("Exception Class")
+    Class<?> exceptionClass;
+
+    @Label("Message")
+    String message;
+
+    @Label("Line")
+    int line;
+}
@@ -1,19 +1,145 @@
 package oop.ex6.main;
 
-import java.io.File;
+import oop.ex6.source.AsciiSourceLines;
+import oop.ex6.source.SourceLines;
+
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
+/**
+ * The command line entry point:
+ * Sjavac [--mmap] [--all-errors] [--line-numbers] [--parallel] [--single-pass]
+ * [--cache directory] file.
+ * A file - reads the code from stdin instead, where --mmap and --cache don't apply.
+ * Prints 0 for a valid file, or the error code for an invalid one with the
+ * error message to stderr. With --all-errors, every error in the file is printed to
+ * stderr, one per line, and with --line-numbers every message is prefixed with its line.
+ * With --cache, results are kept in a {@link ValidationCache} in the given directory, and a
+ * file that didn't change since it was last validated isn't parsed again. With --parallel,
+ * the methods of a large file are verified concurrently, and with --single-pass the file is
+ * validated in a single scan.
+ * The same command can be sent to a resident {@link SjavacServer} by {@link SjavacClient},
+ * with the same output.
+ */
 public class Sjavac {
-    private static final int SUCCESS_CODE = 0;
+    private static final String MEMORY_MAPPED_OPTION = "--mmap";
+    private static final String ALL_ERRORS_OPTION = "--all-errors";
+    private static final String LINE_NUMBERS_OPTION = "--line-numbers";
+    private static final String PARALLEL_OPTION = "--parallel";
+    private static final String SINGLE_PASS_OPTION = "--single-pass";
+    /**
+     * The option naming the cache directory
+     */
+    static final String CACHE_OPTION = "--cache";
+    /**
+     * The file argument reading the code from stdin
+     */
+    static final String STDIN_ARGUMENT = "-";
+    // the name of the code read from stdin, in the Flight Recorder events
+    private static final String STDIN_NAME = "<stdin>";
 
     public static void main(String[] args) {
+        run(args, Paths.get(""), System.in, System.out, System.err);
+    }
+
+    /**
+     * Run a command, printing its output
+     *
+     * @param args             the command arguments
+     * @param workingDirectory the directory relative paths in the arguments are relative to
+     * @param in               the stream the code is read from when the file is -
+     * @param out              the stream the code is printed to
+     * @param err              the stream the errors are printed to
+     */
+    static void run(String[] args, Path workingDirectory, InputStream in, PrintStream out, PrintStream err) {
+        boolean memoryMapped = false;
+        boolean allErrors = false;
+        boolean lineNumbers = false;
+        boolean parallel = false;
+        boolean singlePass = false;
+        Path cacheDirectory = null;
+        int fileArgument = 0;
+        while (fileArgument < args.length - 1) {
+            if (args[fileArgument].equals(MEMORY_MAPPED_OPTION)) {
+                memoryMapped = true;
+            } else if (args[fileArgument].equals(ALL_ERRORS_OPTION)) {
+                allErrors = true;
+            } else if (args[fileArgument].equals(LINE_NUMBERS_OPTION)) {
+                lineNumbers = true;
+            } else if (args[fileArgument].equals(PARALLEL_OPTION)) {
+                parallel = true;
+            } else if (args[fileArgument].equals(SINGLE_PASS_OPTION)) {
+                singlePass = true;
+            } else if (args[fileArgument].equals(CACHE_OPTION) && fileArgument < args.length - 2) {
+                fileArgument++;
+                cacheDirectory = workingDirectory.resolve(args[fileArgument]);
+            } else {
+                break;
+            }
+            fileArgument++;
+        }
+        ValidationResult result;
+        if (args[fileArgument].equals(STDIN_ARGUMENT)) {
+            // The code isn't a file, so there's nothing to map or to cache
+            SourceLines lines = readLines(in);
+            if (lines == null) {
+                result = Parser.ioError();
+            } else {
+                Parser parser = new Parser(STDIN_NAME, lines);
+                parser.setCollectAllErrors(allErrors);
+                parser.setParallel(parallel);
+                parser.setSinglePass(singlePass);
+                result = parser.validate();
+            }
+        } else {
+            Path inputPath = workingDirectory.resolve(args[fileArgument]);
+            Parser parser = new Parser(inputPath.toString());
+            parser.setMemoryMapped(memoryMapped);
+            parser.setCollectAllErrors(allErrors);
+            parser.setParallel(parallel);
+            parser.setSinglePass(singlePass);
+            result = validate(inputPath, parser, cacheDirectory);
+        }
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            err.println(lineNumbers ? diagnostic.getMessage() : diagnostic.getError().getMessage());
+        }
+        out.println(result.getExitCode());
+    }
+
+    /**
+     * Read all the lines of the code from a stream, decoded like the lines of a file
+     *
+     * @param in the stream
+     * @return the lines, or null if the stream failed
+     */
+    private static SourceLines readLines(InputStream in) {
         try {
-            Parser parser = new Parser(args[0]);
-            parser.parse();
-            System.out.println(SUCCESS_CODE);
-        } catch (ParserException parserException) {
-            System.err.println(parserException.getMessage());
-            System.out.println(parserException.getExceptionCode());
+            return AsciiSourceLines.of(in.readAllBytes(), Charset.defaultCharset());
+        } catch (IOException error) {
+            return null;
+        }
+    }
+
+    /**
+     * Validate a file, through the cache if there is one
+     *
+     * @param inputPath      the file to validate
+     * @param parser         the parser of the file
+     * @param cacheDirectory the cache directory, or null to always parse the file
+     * @return the validation result
+     */
+    private static ValidationResult validate(Path inputPath, Parser parser, Path cacheDirectory) {
+        if (cacheDirectory != null) {
+            try {
+                return new ValidationCache(cacheDirectory).validate(inputPath, parser);
+            } catch (IOException error) {
+                // The cache directory can't be created, validate without it
+            }
         }
+        return parser.validate();
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package oop.ex6.main;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+/**
+ * The command line entry point validating many files in a single JVM, see {@link BatchValidator}:
+ * SjavacBatch [--threads n] [--readers n] [--fail-fast] [--all-errors] [--single-pass]
+ * [--include glob] path... A path is a file, a directory whose files matching the include glob
+ * ({@value BatchValidator#DEFAULT_INCLUDE} by default) are walked, a glob such as
+ * 'src/**&#47;*.sjava', or - to read more paths from stdin, one per line.
+ * Every result is printed to stdout as soon as it's ready, as tab separated fields starting
+ * with the file and its code: "file 0" for a valid file, and "file code line message" for
+ * every error of an invalid one, the line being 0 for an error not in a specific line.
+ * Results come in the order the files finish. Exits with 1 if any file is invalid.
+ */
+public class SjavacBatch {
+    private static final String THREADS_OPTION = "--threads";
+    private static final String READERS_OPTION = "--readers";
+    private static final String FAIL_FAST_OPTION = "--fail-fast";
+    private static final String ALL_ERRORS_OPTION = "--all-errors";
+    private static final String SINGLE_PASS_OPTION = "--single-pass";
+    private static final String INCLUDE_OPTION = "--include";
+    private static final String STDIN_PATHS = "-";
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final String USAGE_MESSAGE = "Usage: SjavacBatch [--threads n] [--readers n] [--fail-fast] "
+            + "[--all-errors] [--single-pass] [--include glob] path...";
+    private static final int INVALID_STATUS = 1;
+    private static final int USAGE_STATUS = 2;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BatchValidator batch = new BatchValidator();
+        int index = 0;
+        for (; index < args.length && args[index].startsWith("--"); index++) {
+            boolean hasValue = index + 1 < args.length;
+            if (args[index].equals(THREADS_OPTION) && hasValue) {
+                batch.setValidators(parseCount(args[++index]));
+            } else if (args[index].equals(READERS_OPTION) && hasValue) {
+                batch.setReaders(parseCount(args[++index]));
+            } else if (args[index].equals(INCLUDE_OPTION) && hasValue) {
+                batch.setInclude(args[++index]);
+            } else if (args[index].equals(FAIL_FAST_OPTION)) {
+                batch.setFailFast(true);
+            } else if (args[index].equals(ALL_ERRORS_OPTION)) {
+                batch.setCollectAllErrors(true);
+            } else if (args[index].equals(SINGLE_PASS_OPTION)) {
+                batch.setSinglePass(true);
+            } else {
+                System.err.println(USAGE_MESSAGE);
+                System.exit(USAGE_STATUS);
+            }
+        }
+        if (index == args.length) {
+            System.err.println(USAGE_MESSAGE);
+            System.exit(USAGE_STATUS);
+        }
+        for (; index < args.length; index++) {
+            if (args[index].equals(STDIN_PATHS)) {
+                batch.addPaths(new InputStreamReader(System.in));
+            } else {
+                batch.add(args[index]);
+            }
+        }
+        PrintStream out = System.out;
+        if (!batch.validate((file, result) -> print(out, file, result))) {
+            out.flush();
+            System.exit(INVALID_STATUS);
+        }
+    }
+
+    /**
+     * Parse the value of a thread count option, exiting with the usage if it isn't a number
+     *
+     * @param value the option value
+     * @return the count
+     */
+    private static int parseCount(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException error) {
+            System.err.println(USAGE_MESSAGE);
+            System.exit(USAGE_STATUS);
+            return 0;
+        }
+    }
+
+    /**
+     * Print the result of a file as a single write, so the results of concurrently validated
+     * files don't interleave
+     *
+     * @param out    the stream to print to
+     * @param file   the file
+     * @param result its result
+     */
+    private static void print(PrintStream out, Path file, ValidationResult result) {
+        StringBuilder lines = new StringBuilder();
+        if (result.isValid()) {
+            lines.append(file).append(FIELD_SEPARATOR).append(result.getExitCode()).append(System.lineSeparator());
+        }
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            lines.append(file).append(FIELD_SEPARATOR).append(diagnostic.getError().getExceptionCode())
+                    .append(FIELD_SEPARATOR).append(diagnostic.getLine())
+                    .append(FIELD_SEPARATOR).append(diagnostic.getError().getMessage())
+                    .append(System.lineSeparator());
+        }
+        out.print(lines);
+        out.flush();
+    }
+}
@@ -0,0 +1,86 @@
+package oop.ex6.main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A thin client sending a {@link Sjavac} command to a resident {@link SjavacServer}, and
+ * printing its output exactly like Sjavac would.
+ * Usage: SjavacClient [--socket path] Sjavac-arguments... If there's no server listening on
+ * the socket, or the code is read from stdin, the command runs in this process instead.
+ */
+public class SjavacClient {
+    private static final String SOCKET_OPTION = "--socket";
+
+    public static void main(String[] args) {
+        Path socketPath = SjavacServer.defaultSocketPath();
+        int firstArgument = 0;
+        if (args.length > 2 && args[0].equals(SOCKET_OPTION)) {
+            socketPath = Paths.get(args[1]);
+            firstArgument = 2;
+        }
+        String[] commandArgs = new String[args.length - firstArgument];
+        System.arraycopy(args, firstArgument, commandArgs, 0, commandArgs.length);
+        if (commandArgs.length > 0 && commandArgs[commandArgs.length - 1].equals(Sjavac.STDIN_ARGUMENT)) {
+            // The server can't read this process's stdin
+            Sjavac.main(commandArgs);
+            return;
+        }
+        try {
+            send(socketPath, commandArgs);
+        } catch (IOException error) {
+            // No server, or it went away before answering
+            Sjavac.main(commandArgs);
+        }
+    }
+
+    /**
+     * Send a command to the server and print its response
+     *
+     * @param socketPath the server socket
+     * @param args       the command arguments
+     * @throws IOException if the server can't be reached or didn't answer
+     */
+    private static void send(Path socketPath, String[] args) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+            Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+            writer.write(Paths.get("").toAbsolutePath().toString());
+            writer.write('\n');
+            for (String arg : args) {
+                writer.write(arg);
+                writer.write('\n');
+            }
+            writer.write('\n');
+            writer.flush();
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            StringBuilder out = new StringBuilder();
+            StringBuilder err = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(SjavacServer.OUT_PREFIX)) {
+                    out.append(line, SjavacServer.OUT_PREFIX.length(), line.length()).append(System.lineSeparator());
+                } else if (line.startsWith(SjavacServer.ERR_PREFIX)) {
+                    err.append(line, SjavacServer.ERR_PREFIX.length(), line.length()).append(System.lineSeparator());
+                }
+            }
+            if (out.length() == 0) {
+                throw new IOException("The server didn't answer");
+            }
+            System.err.print(err);
+            System.out.print(out);
+            System.out.flush();
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package oop.ex6.main;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A resident validation server, so validating a file doesn't pay for starting a JVM and
+ * running the parser in the interpreter. Listens on a Unix domain socket, and runs every
+ * request like a {@link Sjavac} command, sending back its output - see {@link SjavacClient}.
+ * The protocol is text, one request per connection: the client sends its working directory
+ * and then the command arguments, a line each, ending with an empty line. The server answers
+ * with the lines the command printed, each prefixed with the stream it was printed to.
+ * Usage: SjavacServer [--socket path] [--warmup], where --warmup runs the parser on a built-in
+ * corpus before accepting requests, so the first requests are already compiled.
+ * Requests may validate any file the server can read, so only the user running the server may
+ * connect: the socket is created owner only, in a directory only the owner can enter. The
+ * working directory of a request must be an absolute directory, and a cache directory it
+ * names must already exist and belong to the server's user, so a request can't make the
+ * server create or evict files elsewhere.
+ */
+public class SjavacServer {
+    /**
+     * The directory of the default socket, under the user's home directory
+     */
+    public static final String DEFAULT_SOCKET_DIRECTORY = ".sjavac";
+    /**
+     * The name of the default socket in its directory
+     */
+    public static final String DEFAULT_SOCKET_NAME = "server.sock";
+    /**
+     * The prefix of a line printed to stdout in a response
+     */
+    static final String OUT_PREFIX = "out:";
+    /**
+     * The prefix of a line printed to stderr in a response
+     */
+    static final String ERR_PREFIX = "err:";
+    private static final String SOCKET_OPTION = "--socket";
+    private static final String WARMUP_OPTION = "--warmup";
+    private static final String LISTENING_MESSAGE = "Listening on ";
+    private static final String INVALID_REQUEST_MESSAGE = "Invalid request: ";
+    private static final String ALREADY_LISTENING_ERROR = "A server is already listening on ";
+    private static final String HOME_PROPERTY = "user.home";
+    private static final String OWNER_ONLY_DIRECTORY = "rwx------";
+    private static final String OWNER_ONLY_FILE = "rw-------";
+    private static final int BACKLOG = 128;
+    // a connection that doesn't finish its request in this time is dropped
+    private static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final String WARMUP_FILE_PREFIX = "sjava-warmup";
+    private static final String WARMUP_FILE_SUFFIX = ".sjava";
+    // a valid file using every kind of line, and lines that make it invalid when added to a method
+    private static final List<String> WARMUP_CORPUS = Arrays.asList(
+            "int g0 = 847;",
+            "final String g1 = \"text\";",
+            "char g2 = 'y';",
+            "double g3 = -376.32;",
+            "boolean g4 = true, g5;",
+            "void method0(int p0, final char p1, boolean p2) {",
+            "    g0 = -311;",
+            "    while (true && p2 || g4) {",
+            "        method0(676, 'w', true);",
+            "        if (g3 || p0) {",
+            "// a comment",
+            "            method1(-472.5, g1, p0);",
+            "            double l0 = p0;",
+            "            return;",
+            "        }",
+            "        return;",
+            "    }",
+            "    return;",
+            "}",
+            "",
+            "void method1(double p0, String p1, int p2) {",
+            "    final int l0 = 53;",
+            "    int l1;",
+            "    String l2 = p1;",
+            "    l1 = l0;",
+            "    if (false || p0 && 5) {",
+            "        char l3 = 'x';",
+            "        l3 = g2;",
+            "        return;",
+            "    }",
+            "    method0(l0, 'p', g4);",
+            "    return;",
+            "}");
+    private static final int WARMUP_INVALID_LINE = 26;
+    private static final List<String> WARMUP_INVALID_LINES = Arrays.asList(
+            "int l4 = \"text\";",
+            "method2(5);",
+            "method0(1, 'a');",
+            "l0 = 5;",
+            "while (p1) {",
+            "int l5 = 5 //",
+            "void method3() {");
+
+    private final Path socketPath;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService workers;
+    // drops the connections that don't finish their request in time
+    private final ScheduledExecutorService timeouts;
+    // the user running the server, who must own the cache directories of requests
+    private final UserPrincipal owner;
+
+    /**
+     * Start listening on a Unix domain socket. Its directory is created owner only if it doesn't
+     * exist, and a socket file left by a server that's gone is replaced.
+     *
+     * @param socketPath the socket path
+     * @throws IOException if the socket can't be listened on, or another server listens on it
+     */
+    public SjavacServer(Path socketPath) throws IOException {
+        this.socketPath = socketPath.toAbsolutePath();
+        Path directory = this.socketPath.getParent();
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(directory);
+            setPermissions(directory, OWNER_ONLY_DIRECTORY);
+        }
+        owner = Files.getOwner(directory);
+        if (Files.exists(this.socketPath, LinkOption.NOFOLLOW_LINKS)) {
+            if (isListening(this.socketPath)) {
+                throw new IOException(ALREADY_LISTENING_ERROR + this.socketPath);
+            }
+            Files.delete(this.socketPath);
+        }
+        serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(this.socketPath), BACKLOG);
+        setPermissions(this.socketPath, OWNER_ONLY_FILE);
+        workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        timeouts = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * @return the socket the server listens on, under the user's home directory
+     */
+    public static Path defaultSocketPath() {
+        return Paths.get(System.getProperty(HOME_PROPERTY), DEFAULT_SOCKET_DIRECTORY, DEFAULT_SOCKET_NAME);
+    }
+
+    /**
+     * @return the socket path the server listens on
+     */
+    public Path getSocketPath() {
+        return socketPath;
+    }
+
+    /**
+     * Set the permissions of a file, where the file system supports POSIX permissions
+     *
+     * @param path        the file
+     * @param permissions the permissions, such as rw-------
+     * @throws IOException if the permissions can't be set
+     */
+    private static void setPermissions(Path path, String permissions) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString(permissions));
+        } catch (UnsupportedOperationException ignored) {
+            // Not a POSIX file system, its default permissions apply
+        }
+    }
+
+    /**
+     * @param socketPath a socket path
+     * @return true if a server accepts connections on the socket, false otherwise
+     */
+    private static boolean isListening(Path socketPath) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+            return true;
+        } catch (IOException error) {
+            return false;
+        }
+    }
+
+    /**
+     * Run the parser on the built-in corpus for a while, valid and invalid, in both error modes,
+     * so the parser is compiled before the first request arrives.
+     *
+     * @throws IOException if the corpus can't be written to a temporary file
+     */
+    public void warmUp() throws IOException {
+        Path file = Files.createTempFile(WARMUP_FILE_PREFIX, WARMUP_FILE_SUFFIX);
+        try {
+            List<List<String>> variants = new ArrayList<>();
+            variants.add(WARMUP_CORPUS);
+            for (String invalidLine : WARMUP_INVALID_LINES) {
+                List<String> variant = new ArrayList<>(WARMUP_CORPUS);
+                variant.add(WARMUP_INVALID_LINE, invalidLine);
+                variants.add(variant);
+            }
+            long deadline = System.nanoTime() + WARMUP_NANOS;
+            int round = 0;
+            while (System.nanoTime() < deadline) {
+                Files.write(file, variants.get(round % variants.size()), StandardCharsets.UTF_8);
+                for (int iteration = 0; iteration < variants.size(); iteration++) {
+                    Parser parser = new Parser(file.toString());
+                    parser.setCollectAllErrors(iteration % 2 == 0);
+                    parser.validate();
+                }
+                round++;
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Accept requests until the server is closed, handling them concurrently
+     *
+     * @throws IOException if accepting a connection failed while the server is open
+     */
+    public void serve() throws IOException {
+        try {
+            while (serverChannel.isOpen()) {
+                SocketChannel connection = serverChannel.accept();
+                workers.execute(() -> handle(connection));
+            }
+        } catch (IOException error) {
+            if (serverChannel.isOpen()) {
+                throw error;
+            }
+        } finally {
+            workers.shutdown();
+            timeouts.shutdown();
+        }
+    }
+
+    /**
+     * Stop accepting requests and remove the socket. Requests already accepted are still answered.
+     *
+     * @throws IOException if closing the socket failed
+     */
+    public void close() throws IOException {
+        serverChannel.close();
+        Files.deleteIfExists(socketPath);
+    }
+
+    /**
+     * Answer a single request
+     *
+     * @param connection the connection of the request
+     */
+    private void handle(SocketChannel connection) {
+        try (SocketChannel channel = connection) {
+            ScheduledFuture<?> timeout = timeouts.schedule(() -> closeQuietly(channel),
+                    REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+            String workingDirectory = reader.readLine();
+            List<String> args = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                args.add(line);
+            }
+            timeout.cancel(false);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            try (PrintStream outStream = new PrintStream(out, true, StandardCharsets.UTF_8.name());
+                 PrintStream errStream = new PrintStream(err, true, StandardCharsets.UTF_8.name())) {
+                try {
+                    if (workingDirectory == null || args.isEmpty()) {
+                        throw new IllegalArgumentException("missing arguments");
+                    }
+                    Path directory = Paths.get(workingDirectory);
+                    checkRequest(directory, args);
+                    // the client's stdin isn't sent, so code read from stdin is empty
+                    Sjavac.run(args.toArray(new String[0]), directory, InputStream.nullInputStream(),
+                            outStream, errStream);
+                } catch (RuntimeException error) {
+                    errStream.println(INVALID_REQUEST_MESSAGE + error);
+                }
+            }
+            writeLines(writer, ERR_PREFIX, err);
+            writeLines(writer, OUT_PREFIX, out);
+            writer.flush();
+        } catch (IOException ignored) {
+            // The client went away, nobody is left to answer
+        }
+    }
+
+    /**
+     * Close a connection whose request took too long, failing the read waiting for it
+     *
+     * @param channel the connection
+     */
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Check the paths of a request - its working directory must be an absolute directory, and
+     * the cache directory it names, if any, an existing directory of the server's user
+     *
+     * @param workingDirectory the working directory of the request
+     * @param args             the command arguments
+     * @throws IllegalArgumentException if a path isn't allowed
+     * @throws IOException              if the owner of the cache directory can't be read
+     */
+    private void checkRequest(Path workingDirectory, List<String> args) throws IOException {
+        if (!workingDirectory.isAbsolute() || !Files.isDirectory(workingDirectory)) {
+            throw new IllegalArgumentException("the working directory isn't an absolute directory");
+        }
+        for (int index = 0; index < args.size() - 2; index++) {
+            if (args.get(index).equals(Sjavac.CACHE_OPTION)) {
+                Path cacheDirectory = workingDirectory.resolve(args.get(index + 1));
+                if (!Files.isDirectory(cacheDirectory, LinkOption.NOFOLLOW_LINKS)
+                        || !Files.getOwner(cacheDirectory, LinkOption.NOFOLLOW_LINKS).equals(owner)) {
+                    throw new IllegalArgumentException("the cache directory isn't a directory of the server's user");
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the lines printed to a stream, prefixed with the stream
+     *
+     * @param writer  the response writer
+     * @param prefix  the stream prefix
+     * @param printed the bytes printed to the stream
+     * @throws IOException if writing failed
+     */
+    private static void writeLines(Writer writer, String prefix, ByteArrayOutputStream printed)
+            throws IOException {
+        String text = new String(printed.toByteArray(), StandardCharsets.UTF_8);
+        for (String line : text.split(System.lineSeparator())) {
+            if (!line.isEmpty()) {
+                writer.write(prefix);
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Run the server until the process is stopped
+     *
+     * @param args the server options
+     * @throws IOException if the server couldn't start
+     */
+    public static void main(String[] args) throws IOException {
+        Path socketPath = defaultSocketPath();
+        boolean warmUp = false;
+        for (int index = 0; index < args.length; index++) {
+            if (args[index].equals(SOCKET_OPTION) && index + 1 < args.length) {
+                socketPath = Paths.get(args[++index]);
+            } else if (args[index].equals(WARMUP_OPTION)) {
+                warmUp = true;
+            }
+        }
+        SjavacServer server = new SjavacServer(socketPath);
+        if (warmUp) {
+            server.warmUp();
+        }
+        System.out.println(LISTENING_MESSAGE + server.getSocketPath());
+        server.serve();
+    }
+}
@@ -0,0 +1,342 @@
+package oop.ex6.main;
+
+import oop.ex6.source.AsciiSourceLines;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A persistent cache of validation results, kept as a file per result in a directory and
+ * shared by all the runs using it. A result is keyed by a hash of the file content, the
+ * validator version, the charset non ASCII content is decoded with and the options changing
+ * the result, so a file that didn't change since it was last validated isn't parsed again -
+ * only hashed. The file is read once, and a result is parsed from the very bytes its key was
+ * hashed from, so a file changing meanwhile can't cache the result of other content.
+ * An entry is written to a temporary file and then moved into place, so concurrent runs
+ * only ever see whole entries. Reading an entry touches it, and once in a while a write
+ * evicts the least recently used entries above the size bound.
+ * A cached error keeps its message, code and line, but is a plain {@link ParserException}
+ * and not the specific exception class the parser threw.
+ */
+public class ValidationCache {
+    /**
+     * The version of the validation rules, part of every key. Must be changed whenever a change
+     * to the parser may change the result of some file, so older results aren't reused.
+     */
+    public static final String VALIDATOR_VERSION = "2";
+    /**
+     * The default bound on the number of entries kept
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String ALL_ERRORS_KEY = "all-errors";
+    private static final String FIRST_ERROR_KEY = "first-error";
+    private static final String TEMPORARY_PREFIX = ".";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final int FIELD_COUNT = 3;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // the length of an entry name - the key hash in hex
+    private static final int ENTRY_NAME_LENGTH = 64;
+    // evicting scans the whole directory, so it's done by one write out of this many on average
+    private static final int EVICTION_PERIOD = 64;
+    // evicting leaves this share of the max entries, so the next writes don't evict again
+    private static final double EVICTION_TARGET = 0.9;
+
+    private final Path directory;
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /**
+     * Use a cache directory, created if it doesn't exist.
+     *
+     * @param directory the cache directory
+     * @throws IOException if the directory can't be created
+     */
+    public ValidationCache(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Set the bound on the number of entries kept. The directory may briefly hold more, until
+     * the next eviction.
+     *
+     * @param maxEntries the max number of entries
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Validate a file, parsing it only if its result isn't in the cache, and caching the result
+     * otherwise. The cache is best effort - if it can't be read or written, the file is parsed.
+     * The file is read into memory once and parsed from there, even if the parser is set to
+     * memory map it.
+     *
+     * @param inputPath the path of the file to validate
+     * @param parser    the parser of the file, with the options to parse it with
+     * @return the validation result
+     */
+    public ValidationResult validate(Path inputPath, Parser parser) {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(inputPath);
+        } catch (IOException error) {
+            // The parser reports the file can't be read
+            return parser.validate();
+        }
+        Charset charset = Charset.defaultCharset();
+        String key = key(content, charset, parser.isCollectAllErrors());
+        try {
+            ValidationResult cached = get(key);
+            if (cached != null) {
+                return cached;
+            }
+        } catch (IOException ignored) {
+            // An unreadable entry is replaced by the new result
+        }
+        try {
+            parser.setSourceLines(AsciiSourceLines.of(content, charset));
+        } catch (IOException error) {
+            return Parser.ioError();
+        }
+        ValidationResult result = parser.validate();
+        if (result.getExitCode() != ParserException.IO_ERROR) {
+            try {
+                put(key, result);
+            } catch (IOException ignored) {
+                // A result that isn't cached is parsed again next time
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key of the result of validating a file with the default charset, see
+     * {@link #key(byte[], Charset, boolean)}
+     *
+     * @param inputPath        the path of the file
+     * @param collectAllErrors whether all the errors in the file are collected
+     * @return the key, in hex
+     * @throws IOException if the file can't be read
+     */
+    public static String key(Path inputPath, boolean collectAllErrors) throws IOException {
+        return key(Files.readAllBytes(inputPath), Charset.defaultCharset(), collectAllErrors);
+    }
+
+    /**
+     * Returns the key of the result of validating a file - a hash of its content, the
+     * validator version, the charset and the options changing the result.
+     *
+     * @param content          the file content
+     * @param charset          the charset non ASCII content is decoded with
+     * @param collectAllErrors whether all the errors in the file are collected
+     * @return the key, in hex
+     */
+    public static String key(byte[] content, Charset charset, boolean collectAllErrors) {
+        MessageDigest digest = newDigest();
+        digest.update(VALIDATOR_VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(charset.name().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update((collectAllErrors ? ALL_ERRORS_KEY : FIRST_ERROR_KEY).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(content);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns a cached result
+     *
+     * @param key the key of the result
+     * @return the result, or null if it isn't cached
+     * @throws IOException if the entry exists but can't be read
+     */
+    public ValidationResult get(String key) throws IOException {
+        Path entry = directory.resolve(key);
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(entry, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException missing) {
+            return null;
+        }
+        ValidationResult result = parse(lines);
+        if (result != null) {
+            touch(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Cache a result, replacing the cached result of the same key atomically
+     *
+     * @param key    the key of the result
+     * @param result the result to cache
+     * @throws IOException if the entry can't be written
+     */
+    public void put(String key, ValidationResult result) throws IOException {
+        StringBuilder content = new StringBuilder();
+        content.append(result.getExitCode()).append(System.lineSeparator());
+        for (Diagnostic diagnostic : result.getDiagnostics()) {
+            content.append(diagnostic.getLine()).append(FIELD_SEPARATOR)
+                    .append(diagnostic.getError().getExceptionCode()).append(FIELD_SEPARATOR)
+                    .append(diagnostic.getError().getMessage()).append(System.lineSeparator());
+        }
+        Path temporary = Files.createTempFile(directory, TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+        try {
+            Files.write(temporary, content.toString().getBytes(StandardCharsets.UTF_8));
+            Path entry = directory.resolve(key);
+            try {
+                Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException unsupported) {
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        if (ThreadLocalRandom.current().nextInt(EVICTION_PERIOD) == 0) {
+            evict();
+        }
+    }
+
+    /**
+     * Delete the least recently used entries if there are more than the max entries, leaving
+     * a bit less than the max. Entries deleted by a concurrent eviction are skipped. Only files
+     * named like entries are counted and deleted, so other files in the directory are kept.
+     *
+     * @throws IOException if the directory can't be listed
+     */
+    public void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                if (isEntryName(entry.getFileName().toString())) {
+                    entries.add(entry);
+                }
+            }
+        }
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        List<FileTime> times = new ArrayList<>(entries.size());
+        List<Integer> order = new ArrayList<>(entries.size());
+        for (int index = 0; index < entries.size(); index++) {
+            times.add(lastModified(entries.get(index)));
+            order.add(index);
+        }
+        order.sort(Comparator.comparing(times::get));
+        int toDelete = entries.size() - (int) (maxEntries * EVICTION_TARGET);
+        for (int index = 0; index < toDelete; index++) {
+            Files.deleteIfExists(entries.get(order.get(index)));
+        }
+    }
+
+    /**
+     * @param name a file name
+     * @return true if it's the name of an entry - a key, false otherwise
+     */
+    private static boolean isEntryName(String name) {
+        if (name.length() != ENTRY_NAME_LENGTH) {
+            return false;
+        }
+        for (int index = 0; index < name.length(); index++) {
+            char current = name.charAt(index);
+            if ((current < '0' || current > '9') && (current < 'a' || current > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse the lines of an entry
+     *
+     * @param lines the entry lines
+     * @return the result, or null if the entry is malformed
+     */
+    private static ValidationResult parse(List<String> lines) {
+        if (lines.isEmpty()) {
+            return null;
+        }
+        try {
+            if (Integer.parseInt(lines.get(0)) == 0) {
+                return ValidationResult.valid();
+            }
+            List<Diagnostic> diagnostics = new ArrayList<>(lines.size() - 1);
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split(FIELD_SEPARATOR, FIELD_COUNT);
+                if (fields.length != FIELD_COUNT) {
+                    return null;
+                }
+                ParserException error = new ParserException(fields[2], Integer.parseInt(fields[1]));
+                diagnostics.add(new Diagnostic(error, Integer.parseInt(fields[0])));
+            }
+            return diagnostics.isEmpty() ? null : ValidationResult.invalid(diagnostics);
+        } catch (NumberFormatException malformed) {
+            return null;
+        }
+    }
+
+    /**
+     * Mark an entry as recently used
+     *
+     * @param entry the entry path
+     */
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Evicted or read only - the entry is still valid
+        }
+    }
+
+    /**
+     * @param entry the entry path
+     * @return the time the entry was last used, or the earliest time if it was already deleted
+     */
+    private static FileTime lastModified(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry);
+        } catch (IOException deleted) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * @return a new digest of the key hash algorithm
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException error) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(error);
+        }
+    }
+
+    /**
+     * @param bytes the bytes to format
+     * @return the bytes in lower case hex
+     */
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int index = 0; index < bytes.length; index++) {
+            hex[index * 2] = HEX_DIGITS[(bytes[index] >> 4) & 0xf];
+            hex[index * 2 + 1] = HEX_DIGITS[bytes[index] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,103 @@
+package oop.ex6.main;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of validating a file, returned instead of throwing by {@link Parser#validate()}.
+ * A valid result is a shared constant, and an invalid one only keeps the diagnostics found -
+ * the messages shown to the user are built only when asked for. Unless the parser collects
+ * all the errors, an invalid result has a single diagnostic.
+ */
+public class ValidationResult {
+    /**
+     * The line of an error that isn't related to a specific line, like an I/O error
+     */
+    public static final int NO_LINE = Diagnostic.NO_LINE;
+    private static final int VALID_CODE = 0;
+    private static final ValidationResult VALID = new ValidationResult(Collections.emptyList());
+
+    // sorted by line, the first one is the error the parser would have thrown
+    private final List<Diagnostic> diagnostics;
+
+    /**
+     * @param diagnostics the errors found, empty for a valid file
+     */
+    private ValidationResult(List<Diagnostic> diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * @return the result of a valid file
+     */
+    public static ValidationResult valid() {
+        return VALID;
+    }
+
+    /**
+     * @param error the error found
+     * @param line  the 1 based line the error was found at, or NO_LINE
+     * @return the result of an invalid file
+     */
+    public static ValidationResult invalid(ParserException error, int line) {
+        return new ValidationResult(Collections.singletonList(new Diagnostic(error, line)));
+    }
+
+    /**
+     * @param diagnostics the errors found, sorted by line - must not be empty
+     * @return the result of an invalid file
+     */
+    public static ValidationResult invalid(List<Diagnostic> diagnostics) {
+        return new ValidationResult(Collections.unmodifiableList(diagnostics));
+    }
+
+    /**
+     * @return true if the file is valid, false otherwise
+     */
+    public boolean isValid() {
+        return diagnostics.isEmpty();
+    }
+
+    /**
+     * @return all the errors found, sorted by line
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return the code printed for the result - 0 for a valid file, otherwise the error code
+     */
+    public int getExitCode() {
+        return isValid() ? VALID_CODE : getError().getExceptionCode();
+    }
+
+    /**
+     * @return the 1 based line the first error was found at, or NO_LINE
+     */
+    public int getLine() {
+        return isValid() ? NO_LINE : diagnostics.get(0).getLine();
+    }
+
+    /**
+     * @return the first error found, or null for a valid file
+     */
+    public ParserException getError() {
+        return isValid() ? null : diagnostics.get(0).getError();
+    }
+
+    /**
+     * @return the first error message, prefixed with its line, or null for a valid file
+     */
+    public String getMessage() {
+        return isValid() ? null : diagnostics.get(0).getMessage();
+    }
+
+    /**
+     * @return the first error message, or a note that the file is valid
+     */
+    @Override
+    public String toString() {
+        return isValid() ? "valid" : getMessage();
+    }
+}
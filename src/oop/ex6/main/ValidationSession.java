@@ -0,0 +1,446 @@
+package oop.ex6.main;
+
+import oop.ex6.lexer.Lexer;
+import oop.ex6.lexer.SymbolTable;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
+import oop.ex6.source.ListSourceLines;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A top level part of a document - a run of global lines, or a block from the line that opens
+ * it in the global scope to the line that closes it, or to the end of the document.
+ * The result of verifying it is kept until the segment is edited.
+ */
+class Segment {
+    private static final long HASH_OFFSET = 0xcbf29ce484222325L;
+    private static final long HASH_PRIME = 0x100000001b3L;
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final List<String> lines;
+    private final boolean isBlock;
+    private long hash;
+    private boolean hashed;
+    // the result of the second pass, with the line of the error relative to the segment
+    private ValidationResult result;
+
+    /**
+     * @param lines   the segment lines
+     * @param isBlock whether the segment is a block, and not global lines
+     */
+    Segment(List<String> lines, boolean isBlock) {
+        this.lines = lines;
+        this.isBlock = isBlock;
+    }
+
+    /**
+     * @return the segment lines
+     */
+    List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * @return the number of lines in the segment
+     */
+    int size() {
+        return lines.size();
+    }
+
+    /**
+     * @return whether the segment is a block, and not global lines
+     */
+    boolean isBlock() {
+        return isBlock;
+    }
+
+    /**
+     * The lines parsed by the first pass - all the global lines, or the line opening the block
+     *
+     * @return the lines of the segment the first pass parses
+     */
+    List<String> getFirstPassLines() {
+        return isBlock ? lines.subList(0, 1) : lines;
+    }
+
+    /**
+     * @return a hash of the segment lines
+     */
+    long hash() {
+        if (!hashed) {
+            long value = HASH_OFFSET;
+            for (String line : lines) {
+                for (int index = 0; index < line.length(); index++) {
+                    value = (value ^ line.charAt(index)) * HASH_PRIME;
+                }
+                value = (value ^ LINE_SEPARATOR) * HASH_PRIME;
+            }
+            hash = value;
+            hashed = true;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the result of the second pass, or null if the segment wasn't verified yet
+     */
+    ValidationResult getResult() {
+        return result;
+    }
+
+    /**
+     * @param result the result of the second pass, with the line of the error relative to the segment
+     */
+    void setResult(ValidationResult result) {
+        this.result = result;
+    }
+}
+
+/**
+ * A long lived validation of a document that is being edited, such as the open file of an
+ * editor. Edits replace a range of lines, and validating after an edit re-checks only what
+ * the edit could have affected, giving the same result as validating the whole document.
+ * The document is kept split to its top level segments - global lines, and blocks of the
+ * global scope (methods). Every block is verified from a fresh copy of the globals, so as
+ * long as the global lines and the first line of each block (the method signatures) are
+ * unchanged, the first pass is kept and only the edited blocks are verified again. Results
+ * are also cached by the block content, so undoing an edit or moving a method is free.
+ * Changing a global line or a signature runs the first pass again and verifies everything.
+ * Every first pass starts a new symbol table, dropping the names that were edited away along
+ * with the scope and method arrays indexed by their ids. When the names typed into blocks
+ * grow the table past a few times the names of the document, the first pass runs again to
+ * drop them too, so a long edit costs memory for the current document only.
+ * A session isn't thread safe.
+ */
+public class ValidationSession {
+    private static final int MAX_CACHED_BLOCKS = 1024;
+    private static final int NO_SEGMENT = -1;
+    private static final int NO_SYMBOL_LIMIT = -1;
+    private static final int MIN_SYMBOL_LIMIT = 1024;
+    private static final int SYMBOL_GROWTH_LIMIT = 4;
+
+    // the names interned since the last first pass - the names of the document, and the
+    // names of lines edited since, which are dropped by the next first pass
+    private SymbolTable symbolTable = new SymbolTable();
+    // the number of symbols that runs the first pass again, or NO_SYMBOL_LIMIT until the
+    // document is verified after a first pass
+    private int symbolLimit = NO_SYMBOL_LIMIT;
+    // the top level segments of the document, in order
+    private final ArrayList<Segment> segments = new ArrayList<>();
+    private int lineCount;
+    // holds the state of the first pass - the globals and method signatures - or null if
+    // the first pass has to run again
+    private Parser parser;
+    // the error of the first pass, the index of the segment it was found at and its index in the segment
+    private ParserException firstPassError;
+    private int firstPassErrorSegment = NO_SEGMENT;
+    private int firstPassErrorLine;
+    // verified blocks by the hash of their content, the least recently used evicted first.
+    // Only valid for the current first pass.
+    private final Map<Long, Segment> verifiedBlocks = new LinkedHashMap<Long, Segment>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Segment> eldest) {
+            return size() > MAX_CACHED_BLOCKS;
+        }
+    };
+
+    /**
+     * Start a session on a document.
+     *
+     * @param lines the document lines, without their line terminators
+     */
+    public ValidationSession(List<String> lines) {
+        SegmentSplitter splitter = new SegmentSplitter(symbolTable);
+        splitter.addAll(lines);
+        segments.addAll(splitter.finish());
+        lineCount = lines.size();
+    }
+
+    /**
+     * Returns the number of lines in the document
+     *
+     * @return the number of lines
+     */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the current document lines
+     *
+     * @return a copy of the document lines
+     */
+    public List<String> getLines() {
+        ArrayList<String> lines = new ArrayList<>(lineCount);
+        for (Segment segment : segments) {
+            lines.addAll(segment.getLines());
+        }
+        return lines;
+    }
+
+    /**
+     * Replace a range of lines in the document. Inserting is replacing an empty range, and
+     * deleting is replacing with no lines. Only the segments around the edit are split again.
+     *
+     * @param startLine   the index of the first replaced line, starting at 0
+     * @param endLine     the index after the last replaced line
+     * @param replacement the new lines, without their line terminators
+     * @throws IndexOutOfBoundsException if the range isn't in the document
+     */
+    public void replaceLines(int startLine, int endLine, List<String> replacement) {
+        if (startLine < 0 || startLine > endLine || endLine > lineCount) {
+            throw new IndexOutOfBoundsException("lines " + startLine + "-" + endLine + " of " + lineCount);
+        }
+        // Find the segments the range touches, [first, last)
+        int first = 0;
+        int firstStart = 0;
+        while (first < segments.size() && firstStart + segments.get(first).size() <= startLine) {
+            firstStart += segments.get(first).size();
+            first++;
+        }
+        // Lines appended at the end may continue a block the document ends inside of
+        if (first == segments.size() && first > 0) {
+            first--;
+            firstStart -= segments.get(first).size();
+        }
+        int last = first;
+        int lastEnd = firstStart;
+        while (last < segments.size() && (last == first || lastEnd < endLine)) {
+            lastEnd += segments.get(last).size();
+            last++;
+        }
+        ArrayList<String> edited = new ArrayList<>(lastEnd - firstStart + replacement.size());
+        for (int index = first; index < last; index++) {
+            edited.addAll(segments.get(index).getLines());
+        }
+        edited.subList(startLine - firstStart, endLine - firstStart).clear();
+        edited.addAll(startLine - firstStart, replacement);
+        // The segments after the edit start in the global scope, unless the edit opened a block
+        // that isn't closed yet - then the following segments are absorbed until it closes
+        SegmentSplitter splitter = new SegmentSplitter(symbolTable);
+        splitter.addAll(edited);
+        while (splitter.inBlock() && last < segments.size()) {
+            splitter.addAll(segments.get(last).getLines());
+            last++;
+        }
+        List<Segment> created = splitter.finish();
+        List<Segment> replaced = segments.subList(first, last);
+        if (!sameHeaders(replaced, created)) {
+            parser = null;
+        }
+        replaced.clear();
+        segments.addAll(first, created);
+        lineCount += replacement.size() - (endLine - startLine);
+    }
+
+    /**
+     * Validate the document, like {@link Parser#validate()} on a file with the same lines.
+     *
+     * @return the validation result
+     */
+    public ValidationResult validate() {
+        if (parser == null || (symbolLimit != NO_SYMBOL_LIMIT && symbolTable.size() > symbolLimit)) {
+            firstPass();
+        }
+        ValidationResult result = verifyDocument();
+        if (symbolLimit == NO_SYMBOL_LIMIT) {
+            symbolLimit = Math.max(MIN_SYMBOL_LIMIT, symbolTable.size() * SYMBOL_GROWTH_LIMIT);
+        }
+        return result;
+    }
+
+    /**
+     * Run the second pass over every segment, in order, after the first pass
+     *
+     * @return the result of the first segment that isn't valid, or a valid result
+     */
+    private ValidationResult verifyDocument() {
+        if (firstPassError != null) {
+            return ValidationResult.invalid(firstPassError,
+                    segmentStart(firstPassErrorSegment) + firstPassErrorLine + 1);
+        }
+        int segmentStart = 0;
+        for (Segment segment : segments) {
+            ValidationResult result = verify(segment);
+            if (!result.isValid()) {
+                return ValidationResult.invalid(result.getError(), segmentStart + result.getLine());
+            }
+            segmentStart += segment.size();
+        }
+        return ValidationResult.valid();
+    }
+
+    /**
+     * Run the first pass over the global lines and the first line of every block, with a new
+     * symbol table, dropping all the results of the second pass, which depend on it.
+     */
+    private void firstPass() {
+        symbolTable = new SymbolTable();
+        symbolLimit = NO_SYMBOL_LIMIT;
+        parser = new Parser(symbolTable);
+        firstPassError = null;
+        firstPassErrorSegment = NO_SEGMENT;
+        verifiedBlocks.clear();
+        parser.startGlobals();
+        for (int index = 0; index < segments.size(); index++) {
+            Segment segment = segments.get(index);
+            segment.setResult(null);
+            List<String> lines = segment.getFirstPassLines();
+            for (int line = 0; line < lines.size() && firstPassError == null; line++) {
+                try {
+                    parser.parseGlobalLine(lines.get(line));
+                } catch (ParserException error) {
+                    firstPassError = error;
+                    firstPassErrorSegment = index;
+                    firstPassErrorLine = line;
+                }
+            }
+        }
+        parser.endGlobals();
+    }
+
+    /**
+     * Run the second pass over a segment, unless it was already verified
+     *
+     * @param segment the segment to verify
+     * @return the result, with the line of the error relative to the segment
+     */
+    private ValidationResult verify(Segment segment) {
+        if (segment.getResult() != null) {
+            return segment.getResult();
+        }
+        if (segment.isBlock()) {
+            Segment cached = verifiedBlocks.get(segment.hash());
+            if (cached != null && cached.getLines().equals(segment.getLines())) {
+                segment.setResult(cached.getResult());
+                return segment.getResult();
+            }
+        }
+        segment.setResult(parser.verifyLines(new ListSourceLines(segment.getLines())));
+        if (segment.isBlock()) {
+            verifiedBlocks.put(segment.hash(), segment);
+        }
+        return segment.getResult();
+    }
+
+    /**
+     * @param index a segment index
+     * @return the index of the first line of the segment in the document
+     */
+    private int segmentStart(int index) {
+        int start = 0;
+        for (int segment = 0; segment < index; segment++) {
+            start += segments.get(segment).size();
+        }
+        return start;
+    }
+
+    /**
+     * Returns true if the first pass sees the same lines in both lists of segments
+     *
+     * @param replaced the segments before an edit
+     * @param created  the segments replacing them
+     * @return true if the segments have the same lines parsed by the first pass
+     */
+    private static boolean sameHeaders(List<Segment> replaced, List<Segment> created) {
+        if (replaced.size() != created.size()) {
+            return false;
+        }
+        for (int index = 0; index < replaced.size(); index++) {
+            if (!replaced.get(index).getFirstPassLines().equals(created.get(index).getFirstPassLines())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits lines to top level segments, tracking the brackets like the first pass of the parser -
+     * a line ending with '{' opens a block and a line ending with '}' closes one.
+     */
+    private static class SegmentSplitter {
+        private final TokenStream tokens;
+        private final ArrayList<Segment> segments = new ArrayList<>();
+        private ArrayList<String> globalLines;
+        private ArrayList<String> block;
+        private int depth;
+
+        /**
+         * @param symbolTable the table the names in the split lines are interned into
+         */
+        SegmentSplitter(SymbolTable symbolTable) {
+            tokens = new TokenStream(symbolTable);
+        }
+
+        /**
+         * @return true if the lines added so far end inside a block
+         */
+        boolean inBlock() {
+            return block != null;
+        }
+
+        /**
+         * @param lines the next lines
+         */
+        void addAll(List<String> lines) {
+            for (String line : lines) {
+                add(line);
+            }
+        }
+
+        /**
+         * @param line the next line
+         */
+        private void add(String line) {
+            Lexer.tokenize(line, tokens);
+            boolean isCode = tokens.size() > 0 && tokens.type(0) != TokenType.COMMENT;
+            if (block == null) {
+                if (isCode && tokens.last() == TokenType.LEFT_BRACE) {
+                    endGlobalLines();
+                    block = new ArrayList<>();
+                    block.add(line);
+                    depth = 1;
+                } else {
+                    if (globalLines == null) {
+                        globalLines = new ArrayList<>();
+                    }
+                    globalLines.add(line);
+                }
+                return;
+            }
+            block.add(line);
+            if (isCode && tokens.last() == TokenType.LEFT_BRACE) {
+                depth++;
+            } else if (isCode && tokens.last() == TokenType.RIGHT_BRACE && --depth == 0) {
+                segments.add(new Segment(block, true));
+                block = null;
+            }
+        }
+
+        /**
+         * @return the segments of all the lines added, the last one unclosed if they end inside a block
+         */
+        List<Segment> finish() {
+            endGlobalLines();
+            if (block != null) {
+                segments.add(new Segment(block, true));
+                block = null;
+            }
+            return segments;
+        }
+
+        /**
+         * End the run of global lines added so far, if any
+         */
+        private void endGlobalLines() {
+            if (globalLines != null) {
+                segments.add(new Segment(globalLines, false));
+                globalLines = null;
+            }
+        }
+    }
+}
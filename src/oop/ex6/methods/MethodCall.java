@@ -1,13 +1,10 @@
 package oop.ex6.methods;
 
-import oop.ex6.main.CommonPatterns;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
 import oop.ex6.variables.BaseVariableException;
-import oop.ex6.variables.Variable;
 import oop.ex6.variables.VariableVerifier;
 
-import java.util.ArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * class that handles method call - checks for its validity
@@ -15,104 +12,123 @@ import java.util.regex.Pattern;
 public class MethodCall {
     //------private fields--------//
 
-    private static final String METHOD_CALL_END = "(^\\s*[;]\\s*)";
-    private static final String METHOD_CALL_MIDDLE = "(\\s*(" + CommonPatterns.VALUE_PATTERN + ")\\s*[,])";
-    private static final Pattern patternMethodName = Pattern.compile(CommonPatterns.METHOD_START);
-    private static final Pattern paramComma = Pattern.compile(METHOD_CALL_MIDDLE);
-    private static final Pattern paramEnd = Pattern.compile(METHOD_CALL_END);
-    private static final Pattern patternLastParam = Pattern.compile(CommonPatterns.VALUE_PATTERN);
     private static final String METHOD_CALL_ERROR_MSG = "Invalid method call";
-    private static ArrayList<String> givenValues;
+    private static final int NO_MATCH = -1;
+    private static final int PARAMETERS_START = 2;
+    // every value is a single token followed by a comma
+    private static final int VALUE_STRIDE = 2;
+    // a class rather than a method reference, which would start the lambda machinery on the
+    // first call of every run
+    private static final ParameterMatcher VALUE_MATCHER = new ParameterMatcher() {
+        @Override
+        public int match(TokenStream tokens, int index) {
+            return matchValue(tokens, index);
+        }
+    };
 
 
     /**
-     * @param parameters string of the argument the function receives
-     * @param methodName the name of the method of the method signature
-     * @param verifier   variable verifier that helps to declare if a usage of the variable is valid
+     * @param tokens       the tokens of the call, the cursor is right after the left parenthesis
+     * @param methodSymbol the id of the name of the method of the method signature
+     * @param verifier     variable verifier that helps to declare if a usage of the variable is valid
+     * @param methods      the methods declared in the parsed file
      * @throws MethodCallException in case of parameters invalidity
      */
-    private static void handleParameters(String parameters,
-                                         String methodName, VariableVerifier verifier) throws
-            MethodCallException {
-        Matcher matcherMiddle = paramComma.matcher(parameters);
-        ParseParameters parser = new ParseParameters();
+    private static void handleParameters(TokenStream tokens, int methodSymbol, VariableVerifier verifier,
+                                         MethodTable methods) throws MethodCallException {
+        int valueCount;
         try {
-
-            givenValues = parser.checkParamsValidity(parameters, paramComma, matcherMiddle,
-                    patternLastParam, paramEnd);
+            valueCount = ParseParameters.countParams(tokens, VALUE_MATCHER, TokenType.SEMICOLON);
         } catch (MethodParamsException paramsException) {
             throw new MethodCallException(paramsException.getMessage());
 
         }
-        if (!MethodSignature.methodCallNameExist(methodName)) {
+        if (!methods.contains(methodSymbol)) {
             throw new MethodCallException(METHOD_CALL_ERROR_MSG);
         }
-        if (!isParamsMatchSignature(verifier, methodName)) {
+        if (!isParamsMatchSignature(verifier, methods, methodSymbol, tokens, valueCount)) {
             throw new MethodCallException(METHOD_CALL_ERROR_MSG);
         }
     }
 
+    /**
+     * match a single value passed to a method - a literal or a variable name
+     *
+     * @param tokens the tokens of the line
+     * @param index  the index of the token the value should be at
+     * @return the index of the token after the value, or -1 if there's no value there
+     */
+    private static int matchValue(TokenStream tokens, int index) {
+        return tokens.type(index).isValue() ? index + 1 : NO_MATCH;
+    }
+
     /**
      * check whether the line seems to be a method call
      *
-     * @param line that possibly a method call
+     * @param tokens     the tokens of a line that possibly a method call
+     * @param signatures the methods declared in the parsed file
      * @return true if the line starts as method call, false otherwise
      */
-    public static boolean isMethodCallStart(String line) {
-        Matcher matcherMethodName = patternMethodName.matcher(line);
-        if (matcherMethodName.find()) {
-            String methodName =
-                    line.substring(matcherMethodName.start(),
-                            line.indexOf(CommonPatterns.LEFT_PARENTHESIS)).strip();
-            return MethodSignature.methodCallNameExist(methodName);
-        }
-        return false;
+    public static boolean isMethodCallStart(TokenStream tokens, MethodSignature signatures) {
+        return isMethodCallForm(tokens) && signatures.methodCallNameExist(tokens.symbol(0));
+    }
+
+    /**
+     * check whether the line starts like a method call - a method name and a left parenthesis,
+     * whether or not such a method was declared
+     *
+     * @param tokens the tokens of a line that possibly a method call
+     * @return true if the line starts with a method name and a left parenthesis, false otherwise
+     */
+    public static boolean isMethodCallForm(TokenStream tokens) {
+        return MethodSignature.isMethodName(tokens, 0) && tokens.type(1) == TokenType.LEFT_PARENTHESIS;
     }
 
     /**
      * checks for the validity if a method call
      *
-     * @param line     string to check whether it is a method call
-     * @param verifier variable verifier that helps to declare if a usage of the variable is valid
+     * @param tokens     the tokens of the line to check whether it is a method call
+     * @param verifier   variable verifier that helps to declare if a usage of the variable is valid
+     * @param methods    the methods declared in the parsed file
      * @throws MethodCallException in case of method call invalidity
      */
-    public static void handleMethodCall(String line, VariableVerifier verifier) throws MethodCallException {
-        String parameters;
-        Matcher matcherMethodName = patternMethodName.matcher(line);
-        if (matcherMethodName.find()) {
-            String methodName =
-                    line.substring(matcherMethodName.start(),
-                            line.indexOf(CommonPatterns.LEFT_PARENTHESIS)).strip();
-            parameters = line.substring(matcherMethodName.end());
-            handleParameters(parameters, methodName, verifier);
+    public static void handleMethodCall(TokenStream tokens, VariableVerifier verifier,
+                                        MethodTable methods) throws MethodCallException {
+        if (isMethodCallForm(tokens)) {
+            int methodSymbol = tokens.symbol(0);
+            tokens.seek(PARAMETERS_START);
+            handleParameters(tokens, methodSymbol, verifier, methods);
         } else {
             throw new MethodCallException(METHOD_CALL_ERROR_MSG);
         }
     }
 
     /**
-     * checks if the parameters match the signature
+     * checks if the parameters match the signature - the number of values against the arity of
+     * the method, then every value against the type of its parameter
      *
-     * @param verifier   variable verifier that helps to declare if a usage of the variable is valid
-     * @param methodName the name of the method
+     * @param verifier     variable verifier that helps to declare if a usage of the variable is valid
+     * @param methods      the methods declared in the parsed file
+     * @param methodSymbol the id of the name of a declared method
+     * @param tokens       the tokens of a call with valid parameters syntax
+     * @param valueCount   the number of values passed in the call
      * @return true if the parameters match the signature, false otherwise
      * @throws MethodCallException in case that the parameters doesn't match the signature
      */
-    public static boolean isParamsMatchSignature(VariableVerifier verifier, String methodName) throws
-            MethodCallException {
-        ArrayList<Variable> vars = MethodSignature.getSignatureVariables().get(methodName);
-        if (givenValues.size() != vars.size()) {
+    public static boolean isParamsMatchSignature(VariableVerifier verifier, MethodTable methods,
+                                                 int methodSymbol, TokenStream tokens,
+                                                 int valueCount) throws MethodCallException {
+        if (valueCount != methods.arity(methodSymbol)) {
             throw new MethodCallException(METHOD_CALL_ERROR_MSG);
         }
-        int size = givenValues.size();
-        for (int i = 0; i < size; i++) {
+        for (int i = 0; i < valueCount; i++) {
             try {
-                verifier.verifyVariableUsage(vars.get(i).getType(), givenValues.get(i));
+                verifier.verifyVariableUsage(methods.parameterType(methodSymbol, i), tokens,
+                        PARAMETERS_START + i * VALUE_STRIDE);
             } catch (BaseVariableException baseVariableException) {
                 throw new MethodCallException(baseVariableException.getMessage());
             }
         }
-        givenValues.clear();
         return true;
     }
 }
@@ -1,63 +1,100 @@
 package oop.ex6.methods;
 
-import oop.ex6.main.CommonPatterns;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
+import oop.ex6.variables.Type;
 import oop.ex6.variables.Variable;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Arrays;
 
 /**
- * class that handles method signature - checks for its validity
+ * class that handles method signature - checks for its validity.
+ * An instance holds the methods declared in a single file, so every parser owns its own.
  */
 public class MethodSignature {
     //------private fields--------//
 
-    private static final String VOID = "(^\\s*(void)\\s+)";
-    private static final String VALID_VARIABLE_NAME = "([a-zA-Z\\d]+)|([_][a-zA-Z\\d_]+)";
-    private static final String METHOD_DECLARE_END = "(^\\s*[{]\\s*)";
-    private static final String LAST_PARAM =
-            "^(\\s*(final\\s+)*(" + CommonPatterns.VALID_TYPE_PATTERN + "\\s+" + VALID_VARIABLE_NAME + ")" +
-                    "\\s*)";
-    private static final String METHOD_DECLARE_MIDDLE =
-            "^(\\s*(final\\s+)*(" + CommonPatterns.VALID_TYPE_PATTERN + "\\s+" + VALID_VARIABLE_NAME + ")" +
-                    "\\s*[,])";
     private static final String METHOD_DECLARATION_ERROR_MSG = "Invalid method signature";
-    private static final Pattern patternMiddle = Pattern.compile(METHOD_DECLARE_MIDDLE);
-    private static final Pattern patternStart = Pattern.compile(CommonPatterns.METHOD_START);
-    private static final Pattern voidPattern = Pattern.compile(VOID);
-    private static final Pattern patternEnd = Pattern.compile(METHOD_DECLARE_END);
-    private static final Pattern patternLastParam = Pattern.compile(LAST_PARAM);
-    private static final String FINAL = "final ";
-    private static final String SPACE = " ";
-    private static HashMap<String, ArrayList<Variable>> signatureVariables = new HashMap<>();
+    private static final char UNDERSCORE = '_';
+    private static final int NO_MATCH = -1;
+    private static final int GROWTH_FACTOR = 2;
+    // a class rather than a method reference, which would start the lambda machinery on the
+    // first signature of every run
+    private static final ParameterMatcher PARAMETER_MATCHER = new ParameterMatcher() {
+        @Override
+        public int match(TokenStream tokens, int index) {
+            return matchParameter(tokens, index);
+        }
+    };
+    // The methods declared in the file being parsed. Owned by a single parser, so
+    // concurrently running parsers never see each other's methods.
+    private final MethodTable table = new MethodTable();
+    // seenParameters[symbol] == signatureStamp if the name was already seen in the parameters
+    // of the signature being parsed, so duplicates are found without allocating a set
+    private int[] seenParameters = new int[0];
+    private int signatureStamp;
+    // parses the parameter lists of the signatures, keeping its buffer between them
+    private final ParseParameters parameterParser = new ParseParameters();
 
     /**
-     * check if a given string seems to be a method string
+     * check if a given line seems to be a method signature
      *
-     * @param methodSignature string that possibly a method signature
+     * @param tokens the tokens of a line that possibly is a method signature
      * @return true if the line starts as method signature, false otherwise
      */
-    public static boolean isMethodSignatureStart(String methodSignature) {
-        Matcher voidMatcher = voidPattern.matcher(methodSignature);
-        return voidMatcher.find();
+    public static boolean isMethodSignatureStart(TokenStream tokens) {
+        return tokens.type(0) == TokenType.VOID;
+    }
+
+    /**
+     * check if a token is a valid method name - a word starting with a letter
+     *
+     * @param tokens the tokens of the line
+     * @param index  the index of the token to check
+     * @return true if the token is a valid method name, false otherwise
+     */
+    static boolean isMethodName(TokenStream tokens, int index) {
+        return tokens.type(index).isWord() && tokens.getLine().charAt(tokens.start(index)) != UNDERSCORE;
     }
 
     /**
-     * @param methodSignature string to check if it is a valid method signature
+     * Check a method signature and declare the method.
+     *
+     * @param tokens the tokens of a line to check if it is a valid method signature
      * @return an array list of variables that declare in that method signature
      * @throws MethodDeclarationException in case of method signature invalidity
      */
-    public static ArrayList<Variable> isMethodSignatureLegal(String methodSignature) throws
+    public ArrayList<Variable> isMethodSignatureLegal(TokenStream tokens) throws
             MethodDeclarationException {
-        Matcher voidMatcher = voidPattern.matcher(methodSignature);
-        boolean isReturnValValid = voidMatcher.find();
-        if (!isReturnValValid) {
+        return parseMethodSignature(tokens, true);
+    }
+
+    /**
+     * Check a method signature without declaring the method - for the second pass, when
+     * the methods were already declared.
+     *
+     * @param tokens the tokens of a line to check if it is a valid method signature
+     * @return an array list of variables that declare in that method signature
+     * @throws MethodDeclarationException in case of method signature invalidity
+     */
+    public ArrayList<Variable> getMethodParameters(TokenStream tokens) throws MethodDeclarationException {
+        return parseMethodSignature(tokens, false);
+    }
+
+    /**
+     * @param tokens  the tokens of a line to check if it is a valid method signature
+     * @param declare whether to declare the method
+     * @return an array list of variables that declare in that method signature
+     * @throws MethodDeclarationException in case of method signature invalidity
+     */
+    private ArrayList<Variable> parseMethodSignature(TokenStream tokens, boolean declare) throws
+            MethodDeclarationException {
+        tokens.seek(0);
+        if (!tokens.accept(TokenType.VOID)) {
             throw new MethodDeclarationException(METHOD_DECLARATION_ERROR_MSG);
         } else {
-            return handleMethodDeclaration(methodSignature.substring(voidMatcher.end()));
+            return handleMethodDeclaration(tokens, declare);
         }
     }
 
@@ -66,22 +103,21 @@ public class MethodSignature {
      * parse the parameters and insert them to arraylist of variables, return them if they are valid,
      * otherwise throws MethodDeclarationException
      *
-     * @param parameters    string of the argument the function receives
-     * @param matcherMiddle matcher of parameters with comma (not including the last parameter)
-     * @param methodName    the name of the method of the method signature
+     * @param tokens       the tokens of the line, the cursor is right after the left parenthesis
+     * @param methodSymbol the id of the name of the method of the method signature
+     * @param declare      whether to declare the method
      * @return an array list of variables that declare in that method signature
      * @throws MethodDeclarationException in case of Invalid parameter
      */
-    private static ArrayList<Variable> handleParameters(String parameters,
-                                                        Matcher matcherMiddle,
-                                                        String methodName) throws MethodDeclarationException {
-        ParseParameters parser = new ParseParameters();
+    private ArrayList<Variable> handleParameters(TokenStream tokens, int methodSymbol,
+                                                 boolean declare) throws MethodDeclarationException {
         try {
-            ArrayList<String> paramsList = parser.checkParamsValidity(parameters, patternMiddle,
-                    matcherMiddle,
-                    patternLastParam, patternEnd);
-            ArrayList<Variable> vars = getSignatureVariables(paramsList);
-            signatureVariables.put(methodName, vars);
+            int parameterCount = parameterParser.checkParamsValidity(tokens, PARAMETER_MATCHER,
+                    TokenType.LEFT_BRACE);
+            ArrayList<Variable> vars = getSignatureVariables(tokens, parameterCount);
+            if (declare) {
+                declareMethod(methodSymbol, vars);
+            }
             return vars;
         } catch (MethodParamsException paramsException) {
             throw new MethodDeclarationException(paramsException.getMessage());
@@ -91,68 +127,103 @@ public class MethodSignature {
 
 
     /**
-     * @param line method signature to check for its validity
+     * @param tokens the tokens of the method signature to check for its validity, the cursor is
+     *               right after the void
+     * @param declare whether to declare the method
      * @return arraylist of variables if valid
      * @throws MethodDeclarationException in case of invalid method call
      */
-    private static ArrayList<Variable> handleMethodDeclaration(String line) throws
+    private ArrayList<Variable> handleMethodDeclaration(TokenStream tokens, boolean declare) throws
             MethodDeclarationException {
-        String parameters;
-        Matcher matcherMethodName = patternStart.matcher(line);
-        if (matcherMethodName.find()) {
-            String methodName =
-                    line.substring(matcherMethodName.start(),
-                            line.indexOf(CommonPatterns.LEFT_PARENTHESIS)).strip();
-            parameters = line.substring(matcherMethodName.end());
-            Matcher matcherMiddle = patternMiddle.matcher(parameters);
-            return handleParameters(parameters, matcherMiddle, methodName);
+        int nameIndex = tokens.position();
+        if (isMethodName(tokens, nameIndex) && tokens.type(nameIndex + 1) == TokenType.LEFT_PARENTHESIS) {
+            int methodSymbol = tokens.symbol(nameIndex);
+            tokens.seek(nameIndex + 2);
+            return handleParameters(tokens, methodSymbol, declare);
         }
         throw new MethodDeclarationException(METHOD_DECLARATION_ERROR_MSG);
     }
 
+    /**
+     * match a single declared parameter - any number of finals, a type and a name
+     *
+     * @param tokens the tokens of the line
+     * @param index  the index of the token the parameter should start at
+     * @return the index of the token after the parameter, or -1 if there's no valid parameter there
+     */
+    private static int matchParameter(TokenStream tokens, int index) {
+        while (tokens.type(index) == TokenType.FINAL) {
+            index++;
+        }
+        if (tokens.type(index).isType() && tokens.type(index + 1).isWord()) {
+            return index + 2;
+        }
+        return NO_MATCH;
+    }
+
+
+    /**
+     * Declare a method, replacing an earlier declaration of the same name
+     *
+     * @param methodSymbol the id of the method name
+     * @param parameters   the parameters of the method
+     */
+    private void declareMethod(int methodSymbol, ArrayList<Variable> parameters) {
+        table.declare(methodSymbol, parameters);
+    }
 
     /**
      * check if method call exists
      *
-     * @param methodName method name
+     * @param methodSymbol the id of the method name
      * @return true if given method name was declared, false otherwise
      */
-    public static boolean methodCallNameExist(String methodName) {
-        return signatureVariables.containsKey(methodName);
+    public boolean methodCallNameExist(int methodSymbol) {
+        return table.contains(methodSymbol);
+    }
+
+    /**
+     * Returns the table of the declared methods, for checking calls. It's the same table for
+     * every call, and a method declared later is added to it in place.
+     *
+     * @return the table of the declared methods
+     */
+    public MethodTable table() {
+        return table;
     }
 
     /**
      * gets the signature variables
      *
-     * @param params method signature to check for its validity
+     * @param tokens         the tokens of the method signature
+     * @param parameterCount the number of parameters, whose spans are in the parameter parser
      * @return array list of the variable from the signature
+     * @throws MethodDeclarationException in case the same name is declared twice
      */
-    public static ArrayList<Variable> getSignatureVariables(ArrayList<String> params) throws
-            MethodDeclarationException {
-        ArrayList<Variable> varList = new ArrayList<>();
+    private ArrayList<Variable> getSignatureVariables(TokenStream tokens, int parameterCount)
+            throws MethodDeclarationException {
+        ArrayList<Variable> varList = new ArrayList<>(parameterCount);
         // Ensure there's no duplicate name declared
-        HashSet<String> seenVariableNames = new HashSet<>();
-        for (String param : params) {
-            boolean isFinal = param.strip().startsWith(FINAL);
-            String currentVar = param.strip();
-            String type, name;
-            if (isFinal) {
-                currentVar = currentVar.replace(FINAL, CommonPatterns.EMPTY_STRING).strip();
-            }
-            type = currentVar.substring(0, param.indexOf(SPACE));
-            name = currentVar.replace(type, CommonPatterns.EMPTY_STRING).strip();
-            if (!seenVariableNames.add(name)) {
+        int symbolCount = tokens.getSymbolTable().size();
+        if (seenParameters.length < symbolCount) {
+            seenParameters = Arrays.copyOf(seenParameters, Math.max(symbolCount,
+                    seenParameters.length * GROWTH_FACTOR));
+        }
+        signatureStamp++;
+        for (int param = 0; param < parameterCount; param++) {
+            // any number of finals, then the type and the name
+            boolean isFinal = tokens.type(parameterParser.parameterStart(param)) == TokenType.FINAL;
+            int nameIndex = parameterParser.parameterEnd(param) - 1;
+            Type type = Type.of(tokens.type(nameIndex - 1));
+            int symbol = tokens.symbol(nameIndex);
+            if (seenParameters[symbol] == signatureStamp) {
                 throw new MethodDeclarationException(METHOD_DECLARATION_ERROR_MSG);
             }
-            Variable variable = new Variable(type, name, isFinal);
+            seenParameters[symbol] = signatureStamp;
+            Variable variable = new Variable(type, symbol, isFinal);
             varList.add(variable);
         }
         return varList;
     }
 
-
-    public static HashMap<String, ArrayList<Variable>> getSignatureVariables() {
-        return signatureVariables;
-    }
 }
-
@@ -0,0 +1,82 @@
+package oop.ex6.methods;
+
+import oop.ex6.variables.Type;
+import oop.ex6.variables.Variable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The methods declared in a file, as the calls in it see them - the number of parameters of
+ * every method and their types, in primitive arrays indexed by the symbol id of the method name.
+ * Owned by the {@link MethodSignature} declaring the methods, and grown in place as they're
+ * declared, so a single pass checking calls while the methods are still being declared sees
+ * every method declared so far. Once the methods are declared it's never changed, so it's
+ * shared read only by the parsers verifying the parts of a file concurrently.
+ */
+public final class MethodTable {
+    private static final int NOT_DECLARED = -1;
+    private static final int GROWTH_FACTOR = 2;
+    private static final Type[] TYPES = Type.values();
+
+    // arities[symbol] - the number of parameters of the method, or NOT_DECLARED
+    private int[] arities = new int[0];
+    // firstParameters[symbol] - the index of the type of the first parameter of the method
+    private int[] firstParameters = new int[0];
+    // the ordinals of the parameter types of all the methods, each method's in order
+    private byte[] parameterTypes = new byte[0];
+    private int parameterCount;
+
+    /**
+     * Declare a method, replacing an earlier declaration of the same name. The parameter types
+     * of the earlier declaration are left unused, rather than moving the ones after them.
+     *
+     * @param methodSymbol the id of the method name
+     * @param parameters   the parameters of the method
+     */
+    void declare(int methodSymbol, List<Variable> parameters) {
+        if (methodSymbol >= arities.length) {
+            int oldLength = arities.length;
+            int newLength = Math.max(methodSymbol + 1, oldLength * GROWTH_FACTOR);
+            arities = Arrays.copyOf(arities, newLength);
+            Arrays.fill(arities, oldLength, newLength, NOT_DECLARED);
+            firstParameters = Arrays.copyOf(firstParameters, newLength);
+        }
+        if (parameterCount + parameters.size() > parameterTypes.length) {
+            parameterTypes = Arrays.copyOf(parameterTypes, Math.max(parameterCount + parameters.size(),
+                    parameterTypes.length * GROWTH_FACTOR));
+        }
+        firstParameters[methodSymbol] = parameterCount;
+        for (Variable parameter : parameters) {
+            parameterTypes[parameterCount++] = (byte) parameter.getType().ordinal();
+        }
+        arities[methodSymbol] = parameters.size();
+    }
+
+    /**
+     * check if a method was declared
+     *
+     * @param methodSymbol the id of the method name
+     * @return true if given method name was declared, false otherwise
+     */
+    public boolean contains(int methodSymbol) {
+        return methodSymbol >= 0 && methodSymbol < arities.length && arities[methodSymbol] != NOT_DECLARED;
+    }
+
+    /**
+     * @param methodSymbol the id of the name of a declared method
+     * @return the number of parameters of the method
+     */
+    public int arity(int methodSymbol) {
+        return arities[methodSymbol];
+    }
+
+    /**
+     * @param methodSymbol the id of the name of a declared method
+     * @param index        the index of the parameter
+     * @return the type of the parameter
+     */
+    public Type parameterType(int methodSymbol, int index) {
+        return TYPES[parameterTypes[firstParameters[methodSymbol] + index]];
+    }
+}
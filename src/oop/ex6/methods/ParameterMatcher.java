@@ -0,0 +1,15 @@
+package oop.ex6.methods;
+
+import oop.ex6.lexer.TokenStream;
+
+/**
+ * Matches a single parameter in a parameters list
+ */
+interface ParameterMatcher {
+    /**
+     * @param tokens the tokens of the line
+     * @param index  the index of the token the parameter should start at
+     * @return the index of the token after the parameter, or -1 if there's no valid parameter there
+     */
+    int match(TokenStream tokens, int index);
+}
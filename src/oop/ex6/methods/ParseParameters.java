@@ -1,115 +1,135 @@
 package oop.ex6.methods;
 
 
-import oop.ex6.main.CommonPatterns;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
 
-import java.util.ArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Arrays;
 
 /**
- * parse the parameters of method signature or method declaration
+ * parse the parameters of method signature or method declaration, in a single scan over the
+ * tokens of the line. The span of every parameter is recorded as the indexes of its first token
+ * and the token after it, in an array kept between lines, so a long list costs one pass and no
+ * allocations once the array is large enough.
  */
 public class ParseParameters {
 
-    private static final String RIGHT_PARENTHESES = "(^\\s*[)]\\s*)";
     private static final String PARAMS_ERROR_MSG = "Invalid parameters";
-    private static final Pattern patternRightParentheses = Pattern.compile(RIGHT_PARENTHESES);
-    private static final String COMMA = ",";
-    private ArrayList<String> parametersList;
-
-    private String parameters;
+    private static final int NO_MATCH = -1;
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int GROWTH_FACTOR = 2;
+    // the start and end token index of every parameter of the last parsed list, in pairs
+    private int[] parameterSpans;
+    private int parameterCount;
 
     /**
      * parse the parameters in a given parameters string
      */
     public ParseParameters() {
-        this.parametersList = new ArrayList<>();
+        this.parameterSpans = new int[INITIAL_CAPACITY * 2];
     }
 
     /**
-     * check for parameters validity
+     * check for parameters validity - the parameters are separated by commas, followed by
+     * a right parenthesis and the line end - recording the span of every parameter
      *
-     * @param parameters       string of the parameters to parse
-     * @param paramComma       pattern in the middle of the string, parameter and comma
-     * @param matcherMiddle    matcher of the first parameter comma
-     * @param patternLastParam pattern of the last parameter
-     * @param paramEnd         pattern of the end of the line (in our case will be '){' or ');'
-     * @return array list of strings - of the parameters , if valid
+     * @param tokens         the tokens of the line, the cursor is right after the left parenthesis
+     * @param parameterMatch matches a single parameter
+     * @param lineEnd        the token ending the line (in our case will be '{' or ';')
+     * @return the number of parameters, if valid
      * @throws MethodParamsException in case of invalid parameters
      */
-
-    public ArrayList<String> checkParamsValidity(String parameters, Pattern paramComma,
-                                                 Matcher matcherMiddle,
-                                                 Pattern patternLastParam, Pattern paramEnd) throws
-            MethodParamsException {
-        this.parameters = parameters;
-        boolean isThereMiddleMatch = checkMiddleMatch(paramComma, matcherMiddle);
-        Matcher lastParam = patternLastParam.matcher(this.parameters);
-        Matcher matcherParenthesesEnd = patternRightParentheses.matcher(this.parameters);
-        boolean lastParamExists = false;
-        if (lastParam.find()) {
-            lastParamExists = true;
-            String param = this.parameters.substring(lastParam.start(), lastParam.end());
-            param = param.replace(COMMA, CommonPatterns.EMPTY_STRING);
-            parametersList.add(param.strip());
-            this.parameters = this.parameters.substring(lastParam.end());
-            matcherParenthesesEnd = patternRightParentheses.matcher(this.parameters);
-        }
-        handleRightParentheses(matcherParenthesesEnd);
-        caseCommaNoLastParam(!lastParamExists && isThereMiddleMatch);
-        handleEndOfLine(paramEnd);
-        return parametersList;
+    int checkParamsValidity(TokenStream tokens, ParameterMatcher parameterMatch,
+                            TokenType lineEnd) throws MethodParamsException {
+        parameterCount = 0;
+        return scan(tokens, parameterMatch, lineEnd, this);
     }
 
     /**
-     * check for middle match
+     * check for parameters validity like {@link #checkParamsValidity}, without recording the
+     * spans - for lists whose parameters are a single token each
      *
-     * @param paramComma    pattern in the middle of the string, parameter and comma
-     * @param matcherMiddle matcher of the first parameter comma
-     * @return true if there is match with paramComma pattern, false otherwise
+     * @param tokens         the tokens of the line, the cursor is right after the left parenthesis
+     * @param parameterMatch matches a single parameter
+     * @param lineEnd        the token ending the line (in our case will be '{' or ';')
+     * @return the number of parameters, if valid
+     * @throws MethodParamsException in case of invalid parameters
      */
-    private boolean checkMiddleMatch(Pattern paramComma, Matcher matcherMiddle) {
-        boolean isThereMiddleMatch = false;
-        while (matcherMiddle.find()) {
-            isThereMiddleMatch = true;
-            String param = this.parameters.substring(matcherMiddle.start(), matcherMiddle.end() - 1);
-            param = param.strip().replace(COMMA, CommonPatterns.EMPTY_STRING);
-            parametersList.add(param.strip());
-            this.parameters = this.parameters.substring(matcherMiddle.end());
-            matcherMiddle = paramComma.matcher(this.parameters);
-        }
-        return isThereMiddleMatch;
+    static int countParams(TokenStream tokens, ParameterMatcher parameterMatch,
+                           TokenType lineEnd) throws MethodParamsException {
+        return scan(tokens, parameterMatch, lineEnd, null);
     }
 
     /**
-     * parse end of line and throws exception in case of invalid end
-     *
-     * @param paramEnd pattern of end of line
-     * @throws MethodParamsException in case of invalid end of line
+     * @param index the index of a parameter of the last parsed list
+     * @return the index of the first token of the parameter
      */
+    int parameterStart(int index) {
+        return parameterSpans[index * 2];
+    }
 
-    private void handleEndOfLine(Pattern paramEnd) throws MethodParamsException {
-        Matcher matcherEnd = paramEnd.matcher(this.parameters);
-        if (!matcherEnd.find()) {
-            throw new MethodParamsException(PARAMS_ERROR_MSG);
+    /**
+     * @param index the index of a parameter of the last parsed list
+     * @return the index of the token after the parameter
+     */
+    int parameterEnd(int index) {
+        return parameterSpans[index * 2 + 1];
+    }
+
+    /**
+     * @param tokens         the tokens of the line, the cursor is right after the left parenthesis
+     * @param parameterMatch matches a single parameter
+     * @param lineEnd        the token ending the line
+     * @param spans          the parser to record the spans in, or null not to record them
+     * @return the number of parameters, if valid
+     * @throws MethodParamsException in case of invalid parameters
+     */
+    private static int scan(TokenStream tokens, ParameterMatcher parameterMatch, TokenType lineEnd,
+                            ParseParameters spans) throws MethodParamsException {
+        int count = 0;
+        if (tokens.peek() != TokenType.RIGHT_PARENTHESIS) {
+            do {
+                int parameterEnd = parameterMatch.match(tokens, tokens.position());
+                if (parameterEnd == NO_MATCH) {
+                    throw new MethodParamsException(PARAMS_ERROR_MSG);
+                }
+                if (spans != null) {
+                    spans.addSpan(tokens.position(), parameterEnd);
+                }
+                count++;
+                tokens.seek(parameterEnd);
+            } while (tokens.accept(TokenType.COMMA));
         }
-        this.parameters = this.parameters.substring(matcherEnd.end());
-        if (!this.parameters.strip().equals(CommonPatterns.EMPTY_STRING)) {
-            throw new MethodParamsException(PARAMS_ERROR_MSG);
+        handleRightParentheses(tokens);
+        handleEndOfLine(tokens, lineEnd);
+        return count;
+    }
+
+    /**
+     * record the span of the next parameter
+     *
+     * @param start the index of the first token of the parameter
+     * @param end   the index of the token after the parameter
+     */
+    private void addSpan(int start, int end) {
+        if (parameterCount * 2 == parameterSpans.length) {
+            parameterSpans = Arrays.copyOf(parameterSpans, parameterSpans.length * GROWTH_FACTOR);
         }
+        parameterSpans[parameterCount * 2] = start;
+        parameterSpans[parameterCount * 2 + 1] = end;
+        parameterCount++;
     }
 
     /**
-     * check for last parameter validity
+     * parse end of line and throws exception in case of invalid end
      *
-     * @param lastParamExists boolean that indicates whether there is parameter in the end of line (that is
-     *                        only variable ith no comma)
-     * @throws MethodParamsException in case of invalid parameters
+     * @param tokens  the tokens of the line
+     * @param lineEnd the token ending the line
+     * @throws MethodParamsException in case of invalid end of line
      */
 
-    private static void caseCommaNoLastParam(boolean lastParamExists) throws MethodParamsException {
-        if (lastParamExists) {
+    private static void handleEndOfLine(TokenStream tokens, TokenType lineEnd) throws MethodParamsException {
+        if (!tokens.accept(lineEnd) || !tokens.atEnd()) {
             throw new MethodParamsException(PARAMS_ERROR_MSG);
         }
     }
@@ -117,14 +137,12 @@ public class ParseParameters {
     /**
      * check for right parentheses validity
      *
-     * @param matcherParenthesesEnd matcher right parentheses
+     * @param tokens the tokens of the line
      * @throws MethodParamsException in case of invalid right parentheses
      */
-    private void handleRightParentheses(Matcher matcherParenthesesEnd) throws MethodParamsException {
-        boolean isMatchEnd = matcherParenthesesEnd.find();
-        if (!isMatchEnd) {
+    private static void handleRightParentheses(TokenStream tokens) throws MethodParamsException {
+        if (!tokens.accept(TokenType.RIGHT_PARENTHESIS)) {
             throw new MethodParamsException(PARAMS_ERROR_MSG);
         }
-        this.parameters = this.parameters.substring(matcherParenthesesEnd.end());
     }
 }
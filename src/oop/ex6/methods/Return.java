@@ -1,24 +1,23 @@
 package oop.ex6.methods;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
 
 /**
  * handle return statement
  */
 public class Return {
-    private static final String RETURN = "^\\s*return\\s*;\\s*$";
-    private static final Pattern returnPattern = Pattern.compile(RETURN);
+    private static final int RETURN_LENGTH = 2;
 
     /**
      * check if return statment
      *
-     * @param line string to check if return statement
+     * @param tokens the tokens of the line to check if return statement
      * @return true if it is, false otherwise
      */
-    public static boolean isReturn(String line) {
-        Matcher returnMatcher = returnPattern.matcher(line);
-        return returnMatcher.find();
+    public static boolean isReturn(TokenStream tokens) {
+        return tokens.size() == RETURN_LENGTH && tokens.type(0) == TokenType.RETURN
+                && tokens.type(1) == TokenType.SEMICOLON;
     }
 
 }
@@ -0,0 +1,89 @@
+package oop.ex6.source;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Source lines of a file read as raw bytes, without decoding it. s-java code is ASCII, and
+ * for an ASCII file every byte is the char a decoder would have produced, so the file is
+ * kept as a single byte array with the offsets the lines start at, and every line is a view
+ * over the bytes - no string per line, and a byte rather than a char per character.
+ * The file is checked for non ASCII bytes in the same scan that finds the line ends. If one
+ * appears, say in a string literal, the bytes are decoded with the default charset instead,
+ * like a FileReader would, so a multi byte character is still a single char.
+ * Lines are split like BufferedReader.readLine does - on "\n", "\r" or "\r\n".
+ */
+public class AsciiSourceLines extends IndexedSourceLines {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final byte[] content;
+    // Whether every byte of the content is ASCII
+    private final boolean ascii;
+
+    /**
+     * Index the lines of the content of a file
+     *
+     * @param content the file content
+     */
+    private AsciiSourceLines(byte[] content) {
+        this.content = content;
+        ascii = indexLines(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Read all the lines of a file - as views over its bytes if it's ASCII, and decoded with
+     * the default charset otherwise.
+     *
+     * @param inputPath the file to read
+     * @return the lines of the file
+     * @throws IOException In case an I/O exception occured when reading the file
+     */
+    public static SourceLines read(Path inputPath) throws IOException {
+        return of(Files.readAllBytes(inputPath), Charset.defaultCharset());
+    }
+
+    /**
+     * Returns the lines of a file content - as views over the bytes if they're ASCII, and
+     * decoded with the given charset otherwise. The bytes aren't copied, so they must not
+     * change while the lines are parsed.
+     *
+     * @param content the file content
+     * @param charset the charset to decode non ASCII content with
+     * @return the lines of the content
+     * @throws IOException In case an I/O exception occured when decoding the content
+     */
+    public static SourceLines of(byte[] content, Charset charset) throws IOException {
+        AsciiSourceLines lines = new AsciiSourceLines(content);
+        if (lines.ascii) {
+            return lines;
+        }
+        return new ReadSourceLines(new InputStreamReader(new ByteArrayInputStream(content), charset));
+    }
+
+    @Override
+    int contentLength() {
+        return content.length;
+    }
+
+    @Override
+    char charAt(int offset) {
+        return (char) (content[offset] & BYTE_MASK);
+    }
+
+    @Override
+    String toString(int start, int length) {
+        return new String(content, start, length, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    boolean nonAscii(int line) {
+        // Stop the scan, the content is decoded instead
+        return false;
+    }
+}
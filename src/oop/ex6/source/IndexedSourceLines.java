@@ -0,0 +1,137 @@
+package oop.ex6.source;
+
+/**
+ * Source lines of a content kept in memory as a whole, as bytes or chars. Only the offsets the
+ * lines start at are kept, in an int array built in a single scan over the content, and every
+ * line is a {@link SourceLine} viewing the content in place - neither the content nor its lines
+ * are copied. A subclass gives the access to its content, and decides what a non ASCII char
+ * found by the scan means for it.
+ * Lines are split like BufferedReader.readLine does - on "\n", "\r" or "\r\n".
+ */
+abstract class IndexedSourceLines implements SourceLines {
+    private static final char LINE_FEED = '\n', CARRIAGE_RETURN = '\r';
+    private static final char FIRST_NON_ASCII = 0x80;
+    private static final int GROWTH_FACTOR = 2;
+
+    // lineStarts[i] is the offset line i starts at, and lineStarts[lineCount] the content end
+    private int[] lineStarts;
+    private int lineCount;
+
+    /**
+     * @return the length of the content
+     */
+    abstract int contentLength();
+
+    /**
+     * Returns a char of the content - a byte is widened to the char of its value
+     *
+     * @param offset the offset of the char
+     * @return the char
+     */
+    abstract char charAt(int offset);
+
+    /**
+     * Returns a part of the content as a string, when its view is turned into one
+     *
+     * @param start  the offset the part starts at
+     * @param length the part length
+     * @return the part as a string
+     */
+    abstract String toString(int start, int length);
+
+    /**
+     * Called by the scan for every non ASCII char of the content
+     *
+     * @param line the index of the line the char is in
+     * @return true to keep scanning, false to stop the scan and leave the index incomplete
+     */
+    abstract boolean nonAscii(int line);
+
+    /**
+     * Build the index of line start offsets in one scan over the content
+     *
+     * @param initialCapacity the initial capacity of the index
+     * @return true if the whole content was scanned, false if the scan was stopped
+     */
+    final boolean indexLines(int initialCapacity) {
+        lineStarts = new int[initialCapacity];
+        int size = contentLength();
+        int lineStart = 0;
+        int index = 0;
+        while (index < size) {
+            char current = charAt(index++);
+            if (current > CARRIAGE_RETURN && current < FIRST_NON_ASCII) {
+                // Neither a line end nor a non ASCII char
+                continue;
+            }
+            if (current >= FIRST_NON_ASCII) {
+                if (!nonAscii(lineCount)) {
+                    return false;
+                }
+                continue;
+            }
+            if (current == CARRIAGE_RETURN && index < size && charAt(index) == LINE_FEED) {
+                index++;
+            } else if (current != LINE_FEED && current != CARRIAGE_RETURN) {
+                continue;
+            }
+            addLine(lineStart);
+            lineStart = index;
+        }
+        if (lineStart < size) {
+            addLine(lineStart);
+        }
+        addLine(size);
+        lineCount--;
+        return true;
+    }
+
+    /**
+     * Append a line start offset to the index
+     *
+     * @param lineStart the offset the line starts at
+     */
+    private void addLine(int lineStart) {
+        if (lineCount == lineStarts.length) {
+            int[] grown = new int[lineStarts.length * GROWTH_FACTOR];
+            System.arraycopy(lineStarts, 0, grown, 0, lineCount);
+            lineStarts = grown;
+        }
+        lineStarts[lineCount++] = lineStart;
+    }
+
+    /**
+     * @param index the line index
+     * @return the offset the line starts at
+     */
+    final int lineStart(int index) {
+        return lineStarts[index];
+    }
+
+    /**
+     * @param index the line index
+     * @return the offset the line ends at, before its line terminator if any
+     */
+    final int lineEnd(int index) {
+        int start = lineStarts[index];
+        int end = lineStarts[index + 1];
+        if (end > start && charAt(end - 1) == LINE_FEED) {
+            end--;
+        }
+        if (end > start && charAt(end - 1) == CARRIAGE_RETURN) {
+            end--;
+        }
+        return end;
+    }
+
+    @Override
+    public int lineCount() {
+        return lineCount;
+    }
+
+    @Override
+    public CharSequence line(int index) {
+        int start = lineStarts[index];
+        return new SourceLine(this, start, lineEnd(index) - start);
+    }
+}
@@ -0,0 +1,30 @@
+package oop.ex6.source;
+
+import java.util.List;
+
+/**
+ * Source lines that are already in memory, such as the lines of a document being edited.
+ * The list isn't copied, so it must not change while the lines are parsed.
+ */
+public class ListSourceLines implements SourceLines {
+    private final List<? extends CharSequence> allLines;
+
+    /**
+     * Wrap lines that are already in memory.
+     *
+     * @param allLines the lines, without their line terminators
+     */
+    public ListSourceLines(List<? extends CharSequence> allLines) {
+        this.allLines = allLines;
+    }
+
+    @Override
+    public int lineCount() {
+        return allLines.size();
+    }
+
+    @Override
+    public CharSequence line(int index) {
+        return allLines.get(index);
+    }
+}
@@ -0,0 +1,90 @@
+package oop.ex6.source;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Source lines of a memory mapped file. Instead of decoding the file into strings,
+ * only the offsets the lines start at are kept in an int array, and every line is a
+ * view over the mapped bytes. The heap footprint is therefore about the size of the
+ * index, regardless of the file size.
+ * The lines are checked for non ASCII bytes in the same scan that finds the line ends. A line
+ * with one, say in a string literal, is decoded with the default charset when it's read, like
+ * a FileReader would, so a multi byte character is still a single char.
+ * Lines are split like BufferedReader.readLine does - on "\n", "\r" or "\r\n".
+ */
+public class MappedSourceLines extends IndexedSourceLines {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int BYTE_MASK = 0xFF;
+    private static final String FILE_TOO_LARGE_ERROR = "File too large to be mapped: ";
+
+    private final ByteBuffer content;
+    // the indexes of the lines with a non ASCII byte
+    private final BitSet nonAsciiLines = new BitSet();
+
+    /**
+     * Map a file and index its lines. The file is closed once mapped, the mapping stays
+     * valid until the lines are no longer used.
+     *
+     * @param inputPath the file to map
+     * @throws IOException In case an I/O exception occured when mapping the file
+     */
+    public MappedSourceLines(Path inputPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(FILE_TOO_LARGE_ERROR + inputPath);
+            }
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        indexLines(INITIAL_CAPACITY);
+    }
+
+    @Override
+    int contentLength() {
+        return content.limit();
+    }
+
+    @Override
+    char charAt(int offset) {
+        return (char) (content.get(offset) & BYTE_MASK);
+    }
+
+    @Override
+    String toString(int start, int length) {
+        return decode(start, length, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    boolean nonAscii(int line) {
+        nonAsciiLines.set(line);
+        return true;
+    }
+
+    @Override
+    public CharSequence line(int index) {
+        if (nonAsciiLines.get(index)) {
+            int start = lineStart(index);
+            return decode(start, lineEnd(index) - start, Charset.defaultCharset());
+        }
+        return super.line(index);
+    }
+
+    /**
+     * @param start   the offset a part of the content starts at
+     * @param length  the part length
+     * @param charset the charset to decode the part with
+     * @return the part decoded
+     */
+    private String decode(int start, int length, Charset charset) {
+        byte[] bytes = new byte[length];
+        content.get(start, bytes);
+        return new String(bytes, charset);
+    }
+}
@@ -0,0 +1,50 @@
+package oop.ex6.source;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * Source lines decoded into strings up front - the input mode of files that aren't ASCII.
+ */
+public class ReadSourceLines implements SourceLines {
+    private final ArrayList<String> allLines;
+
+    /**
+     * Read all the lines of a file.
+     *
+     * @param inputFilename the file to read
+     * @throws IOException In case an I/O exception occured when reading the file
+     */
+    public ReadSourceLines(String inputFilename) throws IOException {
+        this(new FileReader(inputFilename));
+    }
+
+    /**
+     * Read all the lines of a reader, closing it.
+     *
+     * @param input the reader to read
+     * @throws IOException In case an I/O exception occured when reading
+     */
+    public ReadSourceLines(Reader input) throws IOException {
+        allLines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(input)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                allLines.add(line);
+            }
+        }
+    }
+
+    @Override
+    public int lineCount() {
+        return allLines.size();
+    }
+
+    @Override
+    public CharSequence line(int index) {
+        return allLines.get(index);
+    }
+}
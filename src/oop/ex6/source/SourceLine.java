@@ -0,0 +1,50 @@
+package oop.ex6.source;
+
+/**
+ * A line of a source whose content stays in memory as a whole, viewing its chars in place -
+ * nothing is copied until the line is turned into a string.
+ */
+final class SourceLine implements CharSequence {
+    private final IndexedSourceLines source;
+    private final int start;
+    private final int length;
+
+    /**
+     * Create a view over a part of the content of a source
+     *
+     * @param source the source
+     * @param start  the offset the view starts at
+     * @param length the view length
+     */
+    SourceLine(IndexedSourceLines source, int start, int length) {
+        this.source = source;
+        this.start = start;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int startIndex, int endIndex) {
+        if (startIndex < 0 || endIndex > length || startIndex > endIndex) {
+            throw new IndexOutOfBoundsException(startIndex);
+        }
+        return new SourceLine(source, start + startIndex, endIndex - startIndex);
+    }
+
+    @Override
+    public String toString() {
+        return source.toString(start, length);
+    }
+}
@@ -0,0 +1,22 @@
+package oop.ex6.source;
+
+/**
+ * The lines of a code file, read once and then walked by both parsing passes.
+ * Lines are returned without their line terminators.
+ */
+public interface SourceLines {
+    /**
+     * Returns the number of lines in the file
+     *
+     * @return the number of lines
+     */
+    int lineCount();
+
+    /**
+     * Returns a line of the file
+     *
+     * @param index the line index, starting at 0
+     * @return the line content, without the line terminator
+     */
+    CharSequence line(int index);
+}
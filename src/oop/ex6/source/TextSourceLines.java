@@ -0,0 +1,45 @@
+package oop.ex6.source;
+
+/**
+ * Source lines of a whole text that's already in memory, such as code generated or received
+ * by the caller. Like the ASCII and mapped files, only the offsets the lines start at are kept,
+ * and every line is a view over the text - neither the text nor its lines are copied, so the
+ * text must not change while the lines are parsed.
+ * Lines are split like BufferedReader.readLine does - on "\n", "\r" or "\r\n".
+ */
+public class TextSourceLines extends IndexedSourceLines {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final CharSequence text;
+
+    /**
+     * Index the lines of a text
+     *
+     * @param text the text
+     */
+    public TextSourceLines(CharSequence text) {
+        this.text = text;
+        indexLines(INITIAL_CAPACITY);
+    }
+
+    @Override
+    int contentLength() {
+        return text.length();
+    }
+
+    @Override
+    char charAt(int offset) {
+        return text.charAt(offset);
+    }
+
+    @Override
+    String toString(int start, int length) {
+        return text.subSequence(start, start + length).toString();
+    }
+
+    @Override
+    boolean nonAscii(int line) {
+        // The text is already decoded
+        return true;
+    }
+}
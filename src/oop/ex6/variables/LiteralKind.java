@@ -0,0 +1,44 @@
+package oop.ex6.variables;
+
+import oop.ex6.lexer.TokenStream;
+
+/**
+ * The kind of a value used in the code - one of the literal kinds, a name referring to a
+ * variable, or an invalid value. A value is classified in a single pass over its characters,
+ * without allocating.
+ */
+public enum LiteralKind {
+    INT, DOUBLE, BOOLEAN, CHAR, STRING, NAME, INVALID;
+
+    private static final char DOT = '.';
+
+    /**
+     * Classify a value token. The lexer already checked the literal is well formed, so only
+     * a number needs a look at its text, to tell an int from a double.
+     *
+     * @param tokens the tokens of the line
+     * @param index  the index of the value token
+     * @return the kind of the value
+     */
+    public static LiteralKind classify(TokenStream tokens, int index) {
+        switch (tokens.type(index)) {
+            case NUMBER:
+                CharSequence line = tokens.getLine();
+                for (int i = tokens.start(index); i < tokens.end(index); i++) {
+                    if (line.charAt(i) == DOT) {
+                        return DOUBLE;
+                    }
+                }
+                return INT;
+            case STRING_LITERAL:
+                return STRING;
+            case CHAR_LITERAL:
+                return CHAR;
+            case TRUE:
+            case FALSE:
+                return BOOLEAN;
+            default:
+                return tokens.type(index).isWord() ? NAME : INVALID;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package oop.ex6.variables;
+
+import oop.ex6.lexer.TokenType;
+
+/**
+ * The variable types of the language. Which values a type accepts - the variables of which
+ * types can be assigned to it, and the literals of which kinds - is precomputed into boolean
+ * matrices, so checking a cast is a single array lookup.
+ */
+public enum Type {
+    INT, DOUBLE, BOOLEAN, CHAR, STRING;
+
+    // CASTS[from][to] - whether a variable of type from can be assigned to type to
+    private static final boolean[][] CASTS = new boolean[values().length][values().length];
+    // LITERALS[kind][type] - whether a literal of the kind can be assigned to the type
+    private static final boolean[][] LITERALS = new boolean[LiteralKind.values().length][values().length];
+
+    static {
+        for (Type type : values()) {
+            allowCast(type, type);
+        }
+        allowCast(INT, DOUBLE);
+        allowCast(INT, BOOLEAN);
+        allowCast(DOUBLE, BOOLEAN);
+        allowLiteral(LiteralKind.INT, INT);
+        allowLiteral(LiteralKind.INT, DOUBLE);
+        allowLiteral(LiteralKind.INT, BOOLEAN);
+        allowLiteral(LiteralKind.DOUBLE, DOUBLE);
+        allowLiteral(LiteralKind.DOUBLE, BOOLEAN);
+        allowLiteral(LiteralKind.BOOLEAN, BOOLEAN);
+        allowLiteral(LiteralKind.CHAR, CHAR);
+        allowLiteral(LiteralKind.STRING, STRING);
+    }
+
+    /**
+     * Mark a cast as legal
+     */
+    private static void allowCast(Type from, Type to) {
+        CASTS[from.ordinal()][to.ordinal()] = true;
+    }
+
+    /**
+     * Mark a literal kind as assignable to a type
+     */
+    private static void allowLiteral(LiteralKind kind, Type to) {
+        LITERALS[kind.ordinal()][to.ordinal()] = true;
+    }
+
+    /**
+     * Returns the type a type keyword token names
+     *
+     * @param token the type of the token
+     * @return the named type, or null if the token isn't a type keyword
+     */
+    public static Type of(TokenType token) {
+        switch (token) {
+            case INT:
+                return INT;
+            case DOUBLE:
+                return DOUBLE;
+            case BOOLEAN:
+                return BOOLEAN;
+            case CHAR:
+                return CHAR;
+            case STRING:
+                return STRING;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns true if a variable of the given type can be assigned to this type
+     *
+     * @param from the type to cast from
+     * @return true if the cast is legal, false otherwise
+     */
+    public boolean acceptsVariable(Type from) {
+        return CASTS[from.ordinal()][ordinal()];
+    }
+
+    /**
+     * Returns true if a literal of the given kind can be assigned to this type
+     *
+     * @param kind the kind of the literal
+     * @return true if the literal matches the type, false otherwise
+     */
+    public boolean acceptsLiteral(LiteralKind kind) {
+        return LITERALS[kind.ordinal()][ordinal()];
+    }
+}
@@ -1,29 +1,29 @@
 package oop.ex6.variables;
 
 /***
- * A simple container for a variable, containing its type, name, whether it was
- * initialized, and whether it's final.
+ * A simple container for a variable, containing its type, the id of its name in the
+ * symbol table, whether it was initialized, and whether it's final.
  */
 public class Variable {
-    private static final String NAME = "name = ";
+    private static final String SYMBOL = "symbol = ";
     private static final String TYPE = " type = ";
     private static final String INITILIZED = " initialized = ";
     private static final String FINAL = " final = ";
-    private String name;
-    private String type;
+    private final int symbol;
+    private final Type type;
     private boolean initialized;
-    private boolean isFinal;
+    private final boolean isFinal;
 
     /**
      * Create a new variable.
      *
      * @param type    the variable type
-     * @param name    the variable name
+     * @param symbol  the id of the variable name
      * @param isFinal was the variable declared as final
      */
-    public Variable(String type, String name, boolean isFinal) {
-        this.name = name.strip();
-        this.type = type.strip();
+    public Variable(Type type, int symbol, boolean isFinal) {
+        this.symbol = symbol;
+        this.type = type;
         this.isFinal = isFinal;
     }
 
@@ -53,12 +53,12 @@ public class Variable {
     }
 
     /**
-     * Returns the variable name
+     * Returns the id of the variable name in the symbol table
      *
-     * @return the variable name
+     * @return the variable name id
      */
-    public String getName() {
-        return name;
+    public int getSymbol() {
+        return symbol;
     }
 
     /**
@@ -66,7 +66,7 @@ public class Variable {
      *
      * @return the variable type
      */
-    public String getType() {
+    public Type getType() {
         return type;
     }
 
@@ -77,7 +77,7 @@ public class Variable {
      */
     @Override
     public String toString() {
-        return NAME + name + TYPE + type + INITILIZED + initialized
+        return SYMBOL + symbol + TYPE + type + INITILIZED + initialized
                 + FINAL + isFinal;
     }
 
@@ -86,7 +86,7 @@ public class Variable {
      * @return The exact same variable, cloned.
      */
     public Variable clone() {
-        Variable cloned = new Variable(type, name, isFinal);
+        Variable cloned = new Variable(type, symbol, isFinal);
         cloned.initialized = initialized;
         return cloned;
     }
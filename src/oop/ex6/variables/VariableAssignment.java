@@ -1,42 +1,46 @@
 package oop.ex6.variables;
 
 /**
- * A variable assignment class, simply representing an expression of type name=assignment
+ * A helper representing a single assignment, like "a = 5". The name and the value are
+ * kept as the id of the name and the index of the value token in the parsed line.
  */
 class VariableAssignment {
-
-    private static final String NAME = "name = ";
+    /**
+     * The value index of an assignment that doesn't assign any value
+     */
+    static final int NO_VALUE = -1;
+    private static final String SYMBOL = "symbol = ";
     private static final String ASSIGNMENT = " assignment = ";
-    private String name;
-    private String assignment;
+    private final int symbol;
+    private final int assignment;
 
     /**
      * Create a new variable assignment
      *
-     * @param name       the name of the variable we're assigning to
-     * @param assignment the value we're assigning to it, can be
-     *                   another variable name
+     * @param symbol     the id of the name of the variable we're assigning to
+     * @param assignment the index of the value token we're assigning to it, can be
+     *                   another variable name, or NO_VALUE
      */
-    public VariableAssignment(String name, String assignment) {
-        this.name = name;
+    public VariableAssignment(int symbol, int assignment) {
+        this.symbol = symbol;
         this.assignment = assignment;
     }
 
     /**
      * Get the variable name
      *
-     * @return the name we're assigning to
+     * @return the id of the name we're assigning to
      */
-    public String getName() {
-        return name;
+    public int getSymbol() {
+        return symbol;
     }
 
     /**
      * Get the assignment value we're writing
      *
-     * @return the assignment value
+     * @return the index of the assigned value token, or NO_VALUE
      */
-    public String getAssignment() {
+    public int getAssignment() {
         return assignment;
     }
 
@@ -47,7 +51,6 @@ class VariableAssignment {
      */
     @Override
     public String toString() {
-        return NAME + name + ASSIGNMENT + assignment;
+        return SYMBOL + symbol + ASSIGNMENT + assignment;
     }
 }
-
@@ -1,11 +1,10 @@
 package oop.ex6.variables;
 
-import oop.ex6.main.CommonPatterns;
+import oop.ex6.lexer.TokenStream;
+import oop.ex6.lexer.TokenType;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * An exception thrown in statement of kind "a;"
@@ -35,6 +34,20 @@ class NoAssignmentNameException extends BaseVariableException {
     }
 }
 
+/**
+ * An exception thrown in statement of kind "int;"
+ */
+class NoDeclarationNameException extends BaseVariableException {
+    private static final String ERROR_MESSAGE = "Missing name in variable declaration";
+
+    /**
+     * Create a new "no name in declaration" exception
+     */
+    public NoDeclarationNameException() {
+        super(ERROR_MESSAGE);
+    }
+}
+
 /**
  * An exception thrown in the case where we try to declare again a value already
  * in scope, like "int a; \n int a".
@@ -51,36 +64,36 @@ class VariableAlreadyExistsException extends BaseVariableException {
 }
 
 /**
- * A helper for declaring a new variable. Contains the name, type and whether it
+ * A helper for declaring a new variable. Contains the name id, type and whether it
  * was delcared as final. if the declaration had a value, like "int a = 1;"
- * the value is also stored.
+ * the index of the value token is also stored.
  */
 class VariableDeclaration {
-    private String name;
-    private String type;
-    private String possibleAssignment;
-    private boolean isFinal;
+    private final int symbol;
+    private final Type type;
+    private int possibleAssignment = VariableAssignment.NO_VALUE;
+    private final boolean isFinal;
 
     /**
      * Creates a new variable declaration
      *
      * @param type    the declaration type
-     * @param name    the declaration name
+     * @param symbol  the id of the declaration name
      * @param isFinal is the variable final
      */
-    public VariableDeclaration(String type, String name, boolean isFinal) {
+    public VariableDeclaration(Type type, int symbol, boolean isFinal) {
         this.type = type;
-        this.name = name;
+        this.symbol = symbol;
         this.isFinal = isFinal;
     }
 
     /**
      * Returns the declared name
      *
-     * @return the declared name
+     * @return the id of the declared name
      */
-    public String getName() {
-        return name;
+    public int getSymbol() {
+        return symbol;
     }
 
 
@@ -89,16 +102,16 @@ class VariableDeclaration {
      *
      * @return the declared type
      */
-    public String getType() {
+    public Type getType() {
         return type;
     }
 
     /**
      * Returns the declared assignment value
      *
-     * @return the declared assignment value
+     * @return the index of the declared assignment value token, or NO_VALUE
      */
-    public String getAssignment() {
+    public int getAssignment() {
         return possibleAssignment;
     }
 
@@ -114,9 +127,9 @@ class VariableDeclaration {
     /**
      * Set the variable assignment value
      *
-     * @param assignment the assigned value
+     * @param assignment the index of the assigned value token
      */
-    public void setAssignment(String assignment) {
+    public void setAssignment(int assignment) {
         this.possibleAssignment = assignment;
     }
 
@@ -128,7 +141,7 @@ class VariableDeclaration {
      */
     @Override
     public String toString() {
-        return "name = " + name + " type = " + type + " value = " + possibleAssignment
+        return "symbol = " + symbol + " type = " + type + " value = " + possibleAssignment
                 + " final = " + isFinal;
     }
 }
@@ -140,64 +153,33 @@ class VariableDeclaration {
  * in the process.
  */
 public class VariableParser {
-    // Follows are a collection of regexes used for parsing types, their values, var names,
-    // and assignments. Some of these are used in other places in the code that need them,
-    // for example in the variable verifier.
-    private static final String TYPE_FINAL_PATTERN = "(?<typeFinal>int|double|String|boolean|char|" +
-            "(final\\s))";
-    private static final Pattern STARTS_WITH_TYPE_PATTERN = Pattern.compile("^\\s*" +
-            TYPE_FINAL_PATTERN);
-    private static final String VALID_NAME_CAPTURE_GROUP = "(?<name>" + CommonPatterns.VALID_NAME + ")";
-
-    // Used to distinguish "true/false" from a variable name in verifyAssignment
-    static final Pattern BOOLEAN_LITERALS_PATTERN = Pattern.compile("^true|false");
-
-    private static final Pattern TYPE_PATTERN = Pattern.compile("^\\s*" +
-            CommonPatterns.VALID_TYPE_PATTERN + "\\s+");
-    private static final String ASSIGN_REGEX = "=" + "(\\s*" + CommonPatterns.VALUE_PATTERN + ")";
-    private static final Pattern ASSIGN_PATTERN = Pattern.compile("^\\s*" + ASSIGN_REGEX);
-    private static final Pattern LINE_END_PATTERN = Pattern.compile("^\\s*;$");
-    static final Pattern ONLY_NAME_PATTERN = Pattern.compile("^\\s*" + VALID_NAME_CAPTURE_GROUP);
-    private static final Pattern COMMA_NAME_PATTERN = Pattern.compile("^\\s*,\\s*" +
-            VALID_NAME_CAPTURE_GROUP);
-    private static final String TYPE_FINAL = "typeFinal";
-    private static final String NAME = "name";
-    private static final String FINAL = "final";
-    private static final String TYPE = "type";
-    private static final String VALUE = "value";
-
     /**
      * Parse a variable declaration or assignment line. It might contain multiple assignments
      * or declarations, which this function also handles
      *
-     * @param line             the line to parse
+     * @param tokens           the tokens of the line to parse
      * @param variableVerifier the verifier used for checking references to variables, types, etc.
      *                         See VariableVerifier docs for more info
      * @param addToScope       What scope to add the parsed variables to/update with info on assignments
      * @throws BaseVariableException in case any parsing error occurs.
      */
-    public static void parseVariablesLine(String line, VariableVerifier variableVerifier,
+    public static void parseVariablesLine(TokenStream tokens, VariableVerifier variableVerifier,
                                           VariableScope addToScope) throws BaseVariableException {
-        Matcher typeMatch = STARTS_WITH_TYPE_PATTERN.matcher(line);
-        if (typeMatch.find()) {
-            String typeOrFinal = typeMatch.group(TYPE_FINAL);
-            boolean isFinal = false;
+        tokens.seek(0);
+        TokenType first = tokens.peek();
+        if (first.isType() || first == TokenType.FINAL) {
             // Advance over the final
-            if (typeOrFinal.startsWith(FINAL)) {
-                line = line.substring(typeMatch.end());
-                isFinal = true;
-            }
-            List<VariableDeclaration> declarations = parseVariableDeclarationsLine(line, isFinal,
-                    variableVerifier, addToScope);
+            boolean isFinal = tokens.accept(TokenType.FINAL);
+            parseVariableDeclarationsLine(tokens, isFinal, variableVerifier, addToScope);
         } else {
-            List<VariableAssignment> assignments = parseVariableAssignments(line);
-            verifyVariableAssignments(assignments, variableVerifier);
+            List<VariableAssignment> assignments = parseVariableAssignments(tokens);
+            verifyVariableAssignments(assignments, tokens, variableVerifier);
         }
     }
 
     /***
      * Parse a line that contains variable declarations
-     * @param line the line to parse
+     * @param tokens the tokens of the line to parse, the cursor is at the type
      * @param isFinal whether the first variable in the line was final, which
      *                means all are final
      * @param variableVerifier The verifier to verify assignments with
@@ -205,26 +187,28 @@ public class VariableParser {
      * @return a list of variable declarations in the line
      * @throws BaseVariableException in case of a parsing/reference to uninitialized error.
      */
-    private static List<VariableDeclaration> parseVariableDeclarationsLine(String line,
+    private static List<VariableDeclaration> parseVariableDeclarationsLine(TokenStream tokens,
                                                                            boolean isFinal,
                                                                            VariableVerifier variableVerifier,
                                                                            VariableScope addToScope)
             throws BaseVariableException {
         ArrayList<VariableDeclaration> declarations = new ArrayList<VariableDeclaration>();
-        Matcher typeMatcher = TYPE_PATTERN.matcher(line);
-        if (typeMatcher.find()) {
-            String type = typeMatcher.group(TYPE);
-            String remainder = line.substring(typeMatcher.end());
-            List<VariableAssignment> assignments = parseVariableAssignments(remainder);
+        if (tokens.peek().isType()) {
+            Type type = Type.of(tokens.next());
+            List<VariableAssignment> assignments = parseVariableAssignments(tokens);
+            if (assignments.isEmpty()) {
+                // A type followed by the ";" right away, declaring nothing
+                throw new NoDeclarationNameException();
+            }
             for (VariableAssignment assignment : assignments) {
                 VariableDeclaration declaration = new VariableDeclaration(type,
-                        assignment.getName(), isFinal);
-                if (assignment.getAssignment() != null) {
+                        assignment.getSymbol(), isFinal);
+                if (assignment.getAssignment() != VariableAssignment.NO_VALUE) {
                     declaration.setAssignment(assignment.getAssignment());
                 }
                 declarations.add(declaration);
             }
-            verifyAddVariableDeclarations(declarations, variableVerifier, addToScope);
+            verifyAddVariableDeclarations(declarations, tokens, variableVerifier, addToScope);
         } else {
             throw new NoDeclarationTypeException();
         }
@@ -233,53 +217,67 @@ public class VariableParser {
 
 
     /***
-     * Parse a line of variable assignments. Parsing validation is done here while value
-     * verification happens at the caller.
-     * @param line the line to parse
+     * Parse a line of variable assignments, of the form "name [= value], name [= value]...;".
+     * Parsing validation is done here while value verification happens at the caller.
+     * @param tokens the tokens of the line to parse, the cursor is at the first name
      * @return The variable assignments detected
      * @throws NoAssignmentNameException in case of a parsing error
      */
-    private static List<VariableAssignment> parseVariableAssignments(String line) throws
+    private static List<VariableAssignment> parseVariableAssignments(TokenStream tokens) throws
             NoAssignmentNameException {
         ArrayList<VariableAssignment> assignments = new ArrayList<VariableAssignment>();
-        Pattern currentPattern = ONLY_NAME_PATTERN;
-        while (!LINE_END_PATTERN.matcher(line).matches()) {
-            Matcher nameMatcher = currentPattern.matcher(line);
-            if (nameMatcher.find()) {
-                String name = nameMatcher.group(NAME);
-                line = line.substring(nameMatcher.end());
-                Matcher assignmentMatcher = ASSIGN_PATTERN.matcher(line);
-                String value = null;
-                if (assignmentMatcher.find()) {
-                    value = assignmentMatcher.group(VALUE);
-                    line = line.substring(assignmentMatcher.end());
-                }
-                VariableAssignment assignment = new VariableAssignment(name, value);
-                assignments.add(assignment);
-            } else {
+        boolean first = true;
+        while (!isLineEnd(tokens)) {
+            if (!first && !tokens.accept(TokenType.COMMA)) {
                 throw new NoAssignmentNameException();
             }
-            currentPattern = COMMA_NAME_PATTERN;
+            if (!tokens.peek().isWord()) {
+                throw new NoAssignmentNameException();
+            }
+            int symbol = tokens.symbol(tokens.position());
+            tokens.next();
+            int value = VariableAssignment.NO_VALUE;
+            if (tokens.accept(TokenType.ASSIGN)) {
+                if (!tokens.peek().isValue()) {
+                    throw new NoAssignmentNameException();
+                }
+                value = tokens.position();
+                tokens.next();
+            }
+            VariableAssignment assignment = new VariableAssignment(symbol, value);
+            assignments.add(assignment);
+            first = false;
         }
         return assignments;
     }
 
+    /**
+     * Returns true if the cursor is at the ";" ending the line
+     *
+     * @param tokens the tokens of the line
+     * @return true if only the ending ";" is left, false otherwise
+     */
+    private static boolean isLineEnd(TokenStream tokens) {
+        return tokens.peek() == TokenType.SEMICOLON && tokens.position() == tokens.size() - 1;
+    }
     /**
      * Verify that the variable declarations are valid - the types match,
      * no uninit variables are used, no duplicate declarations, etc. Note that
      * the syntax itself is correct at this point.
      *
      * @param declarations     The parsed declarations
+     * @param tokens           The tokens of the line, holding the assigned values
      * @param variableVerifier The variable verifier
      * @param addToScope       What scope to add the variables to
      * @throws BaseVariableException in case of a validity error
      */
     private static void verifyAddVariableDeclarations(List<VariableDeclaration> declarations,
+                                                      TokenStream tokens,
                                                       VariableVerifier variableVerifier,
                                                       VariableScope addToScope) throws BaseVariableException {
         for (VariableDeclaration declaration : declarations) {
-            Variable declaredVariable = variableVerifier.verifyDeclaration(declaration);
-            if (declaration.getAssignment() != null)
+            Variable declaredVariable = variableVerifier.verifyDeclaration(declaration, tokens);
+            if (declaration.getAssignment() != VariableAssignment.NO_VALUE)
                 declaredVariable.setInitialized();
             addToScope.addVariable(declaredVariable);
         }
@@ -290,14 +288,16 @@ public class VariableParser {
      * initialized, there is no write to final, etc.
      *
      * @param assignments      The parsed assignments
+     * @param tokens           The tokens of the line, holding the assigned values
      * @param variableVerifier The variable verifier used for verifying validity
      * @throws BaseVariableException in case of a validity error
      */
     private static void verifyVariableAssignments(List<VariableAssignment> assignments,
+                                                  TokenStream tokens,
                                                   VariableVerifier variableVerifier)
             throws BaseVariableException {
         for (VariableAssignment assignment : assignments) {
-            Variable assigningTo = variableVerifier.verifyAssignment(assignment);
+            Variable assigningTo = variableVerifier.verifyAssignment(assignment, tokens);
             // We are now no longer uninit as we've just written a value, write it.
             assigningTo.setInitialized();
         }
@@ -1,26 +1,168 @@
 package oop.ex6.variables;
 
-import oop.ex6.main.CommonPatterns;
+import java.util.Arrays;
+import java.util.List;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+/**
+ * A single binding of a name in a chain of scopes - the variable the name refers to, the
+ * scope that declared it, the binding of the same name in an enclosing scope that it
+ * shadows, if any, and the binding declared before it in the same scope.
+ */
+class ScopeBinding {
+    private Variable variable;
+    private final VariableScope owner;
+    private final ScopeBinding shadowed;
+    private final ScopeBinding previousDeclared;
+
+    /**
+     * Create a new binding
+     *
+     * @param variable         the bound variable
+     * @param owner            the scope declaring the variable
+     * @param shadowed         the binding this one shadows, or null
+     * @param previousDeclared the binding declared before this one in the same scope, or null
+     */
+    ScopeBinding(Variable variable, VariableScope owner, ScopeBinding shadowed, ScopeBinding previousDeclared) {
+        this.variable = variable;
+        this.owner = owner;
+        this.shadowed = shadowed;
+        this.previousDeclared = previousDeclared;
+    }
+
+    /**
+     * @return the bound variable
+     */
+    Variable getVariable() {
+        return variable;
+    }
+
+    /**
+     * Bind the name to another variable, when it's re-declared in the same scope
+     *
+     * @param variable the new variable
+     */
+    void setVariable(Variable variable) {
+        this.variable = variable;
+    }
+
+    /**
+     * @return the scope declaring the variable
+     */
+    VariableScope getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the binding this one shadows, or null if there's none
+     */
+    ScopeBinding getShadowed() {
+        return shadowed;
+    }
+
+    /**
+     * @return the binding declared before this one in the same scope, or null if it's the first
+     */
+    ScopeBinding getPreviousDeclared() {
+        return previousDeclared;
+    }
+}
 
 /**
- * A helper representing the variables available in a scope. In our implementation
- * we always have 2 live scopes - the parent scope to the current one, and the current
- * scope. Has helpers for retrieving the variable itself, checking if a name is in scope,
- * etc.
+ * The index of a chain of scopes - from the id of every name to its innermost binding.
+ * Names are dense symbol ids, so the index is an array rather than a hash map. The array
+ * grows to the largest id bound in it, about the size of the symbol table, so rather than
+ * allocating a new index for every method, an index is cleared and reused. A binding counts
+ * only if it was set since the last clear, so clearing is O(1).
+ */
+class ScopeIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private ScopeBinding[] bindings = new ScopeBinding[INITIAL_CAPACITY];
+    // stamps[symbol] == stamp if bindings[symbol] was set since the last clear
+    private int[] stamps = new int[INITIAL_CAPACITY];
+    private int stamp = 1;
+
+    /**
+     * @param symbol the name id
+     * @return the innermost binding of the name, or null if it's not bound
+     */
+    ScopeBinding get(int symbol) {
+        return symbol < bindings.length && stamps[symbol] == stamp ? bindings[symbol] : null;
+    }
+
+    /**
+     * @param symbol  the name id
+     * @param binding the new innermost binding of the name, or null to unbind it
+     */
+    void set(int symbol, ScopeBinding binding) {
+        if (symbol >= bindings.length) {
+            int capacity = Math.max(bindings.length * 2, symbol + 1);
+            bindings = Arrays.copyOf(bindings, capacity);
+            stamps = Arrays.copyOf(stamps, capacity);
+        }
+        bindings[symbol] = binding;
+        stamps[symbol] = stamp;
+    }
+
+    /**
+     * Unbind all the names
+     */
+    void clear() {
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            stamp = 0;
+        }
+        stamp++;
+    }
+}
+
+/**
+ * A helper representing the variables declared in a scope. Scopes form a chain - every
+ * scope but the outermost has an enclosing parent scope, whose variables are visible in it
+ * unless shadowed. Has helpers for retrieving the variable itself, checking if a name is
+ * declared in the scope, etc. Variables are looked up by the symbol id of their name.
+ * The scopes of a chain share a single index from every name to its innermost binding, so
+ * entering a scope costs O(1), exiting it costs O(variables declared in it), and looking
+ * up a visible variable is a single array access regardless of the nesting depth. Since the
+ * index reflects the innermost scope, only the innermost scope of a chain may be used for
+ * lookups and declarations.
  */
 public class VariableScope implements Cloneable {
     private static final String NEW_LINE = "\n";
-    private HashMap<String, Variable> variables;
+    private final VariableScope parent;
+    // symbol -> innermost binding, shared by the whole chain
+    private final ScopeIndex visibleVariables;
+    // The last variable declared in this scope itself, linking to the ones declared before it
+    private ScopeBinding lastDeclared;
+    // The number of variables declared in this scope itself
+    private int declaredCount;
 
     /**
-     * Create a new variable scope with no variables declared.
+     * Create a new outermost variable scope with no variables declared.
      */
     public VariableScope() {
-        variables = new HashMap<String, Variable>();
+        parent = null;
+        visibleVariables = new ScopeIndex();
+    }
+
+    /**
+     * Create a new outermost variable scope with no variables declared, reusing an index
+     *
+     * @param visibleVariables the index, cleared
+     */
+    private VariableScope(ScopeIndex visibleVariables) {
+        parent = null;
+        this.visibleVariables = visibleVariables;
+        visibleVariables.clear();
+    }
+
+    /**
+     * Create a new empty scope nested in the given scope. This is O(1) - nothing is copied.
+     *
+     * @param parent the enclosing scope, whose variables are visible in the new scope
+     */
+    public VariableScope(VariableScope parent) {
+        this.parent = parent;
+        visibleVariables = parent.visibleVariables;
     }
 
     /**
@@ -29,116 +171,156 @@ public class VariableScope implements Cloneable {
      * @param variable the variable to add to the scope
      */
     public void addVariable(Variable variable) {
-        variables.put(variable.getName(), variable);
+        int symbol = variable.getSymbol();
+        ScopeBinding visible = visibleVariables.get(symbol);
+        if (visible != null && visible.getOwner() == this) {
+            // Re-declared in the same scope, replace the binding rather than shadow it
+            visible.setVariable(variable);
+            return;
+        }
+        lastDeclared = new ScopeBinding(variable, this, visible, lastDeclared);
+        visibleVariables.set(symbol, lastDeclared);
+        declaredCount++;
     }
 
     /**
-     * Get a variable by name in the scope, returning null if the variable doesn't
-     * exist in the scope
+     * Returns the number of variables declared in this scope itself, not counting the
+     * enclosing scopes
      *
-     * @param name The variable name to lookup
-     * @return The variable if it's in scope, or null if it isn't.
+     * @return the number of variables declared in the scope
      */
-    public Variable getVariableByName(String name) {
-        return variables.get(name);
+    public int size() {
+        return declaredCount;
     }
 
     /**
-     * Checks if the passed variable name is in scope.
+     * Get a variable declared in this scope itself, returning null if the variable
+     * isn't declared in it.
      *
-     * @param name The name of the variable
-     * @return true if the variable is in scope, false otherwise
+     * @param symbol The id of the variable name to lookup
+     * @return The variable if it's declared in this scope, or null if it isn't.
      */
-    public boolean isVariableInScope(String name) {
-        return getVariableByName(name) != null;
+    public Variable getVariable(int symbol) {
+        ScopeBinding visible = visibleVariables.get(symbol);
+        return visible != null && visible.getOwner() == this ? visible.getVariable() : null;
     }
 
     /**
-     * Merge this scope with another scope, keeping variables introduced in the
-     * current scope and adding ones from the parent scope. This is used to merge
-     * for example the global + parameters scope when entering an if inside a function.
+     * Checks if the passed variable name is declared in this scope itself, not counting
+     * the enclosing scopes.
      *
-     * @param parentScope The parent scope to merge with
-     * @return The new merged scope
-     */
-    public VariableScope mergeWithScope(VariableScope parentScope) {
-        for (Map.Entry<String, Variable> nameVariable : parentScope.variables.entrySet()) {
-            Variable overwritingVariable = getVariableByName(nameVariable.getKey());
-            if (overwritingVariable == null) {
-                addVariable(nameVariable.getValue());
-            }
+     * @param symbol The id of the variable name
+     * @return true if the variable is declared in the scope, false otherwise
+     */
+    public boolean isVariableInScope(int symbol) {
+        return getVariable(symbol) != null;
+    }
+
+    /**
+     * Lookup a visible variable - declared in this scope or in one of the enclosing
+     * scopes, the innermost declaration winning.
+     *
+     * @param symbol The id of the variable name to lookup
+     * @return the variable that was found, or null if none was found.
+     */
+    public Variable findVariable(int symbol) {
+        ScopeBinding binding = visibleVariables.get(symbol);
+        return binding == null ? null : binding.getVariable();
+    }
+
+    /**
+     * Exit this scope and every scope nested in the given enclosing scope, dropping their
+     * variables, and continue in a fresh scope nested in the enclosing one. The variables
+     * of the enclosing scope stay visible, but can be declared again in the fresh scope.
+     *
+     * @param enclosing the scope that was the innermost one when the exited scope was entered
+     * @return the new innermost scope
+     */
+    public VariableScope exitTo(VariableScope enclosing) {
+        for (VariableScope scope = this; scope != enclosing; scope = scope.parent) {
+            scope.unbindVariables();
+        }
+        return new VariableScope(enclosing);
+    }
+
+    /**
+     * Remove the bindings of the variables declared in this scope from the chain index,
+     * exposing the bindings they shadowed.
+     */
+    private void unbindVariables() {
+        for (ScopeBinding binding = lastDeclared; binding != null; binding = binding.getPreviousDeclared()) {
+            visibleVariables.set(binding.getVariable().getSymbol(), binding.getShadowed());
         }
-        return this;
+        lastDeclared = null;
+        declaredCount = 0;
     }
 
     /**
-     * Creates a new variable scope from a list of variables representing method
-     * parameters. This is used to add the method params to the method scope.
+     * Declare the parameters of a method in this scope, the scope its body starts in, as
+     * initialized variables. A parameter whose name is already declared in the scope is
+     * skipped.
      *
-     * @param params The list of parameters
-     * @return The filled scope
+     * @param params the method parameters
      */
-    public static VariableScope fromMethodParameters(ArrayList<Variable> params) {
-        VariableScope paramsScope = new VariableScope();
+    public void addParameters(List<Variable> params) {
         for (Variable param : params) {
             param.setInitialized();
-            paramsScope.addVariable(param);
+            if (!isVariableInScope(param.getSymbol())) {
+                addVariable(param);
+            }
         }
-        return paramsScope;
     }
 
     /**
-     * A pretty representation of all the variables in the scope, for debugging
+     * A pretty representation of all the variables declared in the scope, for debugging
      * purposes.
      *
      * @return A string representation of the scope.
      */
     @Override
     public String toString() {
-        String result = CommonPatterns.EMPTY_STRING;
-        for (Map.Entry<String, Variable> nameVariable : variables.entrySet()) {
-            result += nameVariable.getValue() + NEW_LINE;
+        StringBuilder result = new StringBuilder();
+        for (ScopeBinding binding = lastDeclared; binding != null; binding = binding.getPreviousDeclared()) {
+            result.append(binding.getVariable()).append(NEW_LINE);
         }
-        return result;
+        return result.toString();
     }
 
     /**
-     * Perform a deep clone of the scope. sadly the regular hashmap clone
-     * doesn't cut it, since we need to copy the inner variable as well.
+     * Perform a deep clone of the variables declared in the scope into a new outermost
+     * scope. sadly a shallow copy doesn't cut it, since we need to copy the
+     * inner variable as well.
      *
      * @return The cloned scope
      */
     public VariableScope clone() {
-        VariableScope cloned = new VariableScope();
-        for (Map.Entry<String, Variable> nameVariable : variables.entrySet()) {
-            cloned.variables.put(nameVariable.getKey(), nameVariable.getValue().clone());
-        }
-        return cloned;
+        return cloneInto(new VariableScope());
     }
-}
-
-/**
- * A simple helpers class, currently only has a helper for looking up
- * variable in 2 possible scopes.
- */
-class ScopeHelpers {
 
     /**
-     * Lookup a variable, first in the current scope, then in the parent scope.
-     * If a variable is found in the current scope is returned, otherwise the
-     * parent scope is looked up. If none is found, null is returned.
+     * Perform a deep clone like {@link #clone()}, reusing the index of an outermost scope
+     * whose chain is no longer used - such as the copy of the globals the previous method
+     * started from. The index of a new scope would grow to the size of the symbol table again,
+     * so reusing it keeps starting a method O(variables) rather than O(names in the file).
      *
-     * @param name         The variable name to lookup
-     * @param currentScope The local scope to look in
-     * @param parentScope  The parent scope to look in
-     * @return the variable that was found in one of the scopes, or null if none
-     * was found.
-     */
-    public static Variable findRelevantVariable(String name, VariableScope currentScope,
-                                                VariableScope parentScope) {
-        Variable currentVariable = currentScope.getVariableByName(name);
-        if (currentVariable != null)
-            return currentVariable;
-        return parentScope.getVariableByName(name);
+     * @param discarded an outermost scope whose chain isn't used anymore, or null
+     * @return The cloned scope
+     */
+    public VariableScope cloneReusing(VariableScope discarded) {
+        if (discarded == null) {
+            return clone();
+        }
+        return cloneInto(new VariableScope(discarded.visibleVariables));
+    }
+
+    /**
+     * @param cloned an empty outermost scope
+     * @return the scope, with deep clones of the variables declared in this scope
+     */
+    private VariableScope cloneInto(VariableScope cloned) {
+        for (ScopeBinding binding = lastDeclared; binding != null; binding = binding.getPreviousDeclared()) {
+            cloned.addVariable(binding.getVariable().clone());
+        }
+        return cloned;
     }
 }
\ No newline at end of file
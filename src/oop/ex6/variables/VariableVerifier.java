@@ -1,11 +1,6 @@
 package oop.ex6.variables;
 
-import oop.ex6.main.CommonPatterns;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static oop.ex6.variables.VariableParser.*;
+import oop.ex6.lexer.TokenStream;
 
 /**
  * An exception representing a type not matching it's usage. For instance used
@@ -62,24 +57,16 @@ class WriteToFinalException extends BaseVariableException {
  * or references to variables by himself
  */
 public class VariableVerifier {
-    private static final String INT = "int";
-    private static final String DOUBLE = "double";
-    private static final String STRING = "String";
-    private static final String BOOLEAN = "boolean";
-    private static final String CHAR = "char";
-    private static final String NAME = "name";
-
-
-    private VariableScope currentScope, parentScope;
+    // The innermost scope - variables are declared in it, and looked up through it
+    // in all the enclosing scopes as well.
+    private VariableScope currentScope;
 
     /**
      * Create a new variable verifier
      *
-     * @param parentScope  The current parent scope
-     * @param currentScope The current local scope
+     * @param currentScope The current innermost scope
      */
-    public VariableVerifier(VariableScope parentScope, VariableScope currentScope) {
-        this.parentScope = parentScope;
+    public VariableVerifier(VariableScope currentScope) {
         this.currentScope = currentScope;
     }
 
@@ -87,26 +74,22 @@ public class VariableVerifier {
      * The main helper - verifying if a value corresponds to a type.
      * This works whether value is a constant, or a reference to a variable name.
      *
-     * @param typeName The required value type
-     * @param value    The value to verify aginst the passed typeName
+     * @param type   The required value type
+     * @param tokens The tokens of the line the value is in
+     * @param index  The index of the value token to verify aginst the passed type
      * @throws BadValueException           In case the value doesn't match the type
      * @throws UninitVariableReadException If the value references an uninitialized variable
      */
-    public void verifyVariableUsage(String typeName, String value) throws BadValueException,
+    public void verifyVariableUsage(Type type, TokenStream tokens, int index) throws BadValueException,
             UninitVariableReadException {
-        // First, check the case where we refer to an existing variable. It luckily
-        // doesn't conflict with the assignment, unless it's a boolean. If we do, go to the "variable read"
-        // flow,
-        // otherwise to the const assignment flow.
-        Matcher varNameMatcher = ONLY_NAME_PATTERN.matcher(value);
-        // Sadly a boolean is a valid name. We need to catch that here and treat it as a
-        // literal/
-        Matcher booleanLiteralPattern = BOOLEAN_LITERALS_PATTERN.matcher(value);
-        if (varNameMatcher.find() && !booleanLiteralPattern.find()) {
-            String varName = varNameMatcher.group(NAME).trim();
-            verifyReferenceAssignment(typeName, varName);
-        } else {
-            verifyConstAssignment(typeName, value);
+        // A value is either a reference to a variable name, going to the "variable read" flow,
+        // or a constant, going to the const assignment flow. true and false are constants even
+        // though they look like names.
+        LiteralKind kind = LiteralKind.classify(tokens, index);
+        if (kind == LiteralKind.NAME) {
+            verifyReferenceAssignment(type, tokens.symbol(index));
+        } else if (!type.acceptsLiteral(kind)) {
+            throw new BadValueException();
         }
     }
 
@@ -114,18 +97,18 @@ public class VariableVerifier {
      * Verify a variable assignment
      *
      * @param assignment the variable assignment
+     * @param tokens     the tokens of the line holding the assigned value
      * @return The assigned variable if the assignment is valid - no reference to uninit variable, the
      * value is correct, etc.
      * @throws BaseVariableException If the assignment is illegal
      */
-    Variable verifyAssignment(VariableAssignment assignment) throws BaseVariableException {
+    Variable verifyAssignment(VariableAssignment assignment, TokenStream tokens) throws BaseVariableException {
         // Verify that we have indeed assigned something
-        if (assignment.getAssignment() == null) {
+        if (assignment.getAssignment() == VariableAssignment.NO_VALUE) {
             throw new MissingValueException();
         }
         // Make sure we write to an existing, non-final variable(in any of the scopes)
-        Variable assigningTo = ScopeHelpers.findRelevantVariable(assignment.getName(),
-                currentScope, parentScope);
+        Variable assigningTo = currentScope.findVariable(assignment.getSymbol());
         if (assigningTo != null) {
             if (assigningTo.getFinal()) {
                 throw new WriteToFinalException();
@@ -134,7 +117,7 @@ public class VariableVerifier {
             throw new UninitVariableReadException();
         }
         // Verify the assignment value
-        verifyVariableUsage(assigningTo.getType(), assignment.getAssignment());
+        verifyVariableUsage(assigningTo.getType(), tokens, assignment.getAssignment());
         return assigningTo;
     }
 
@@ -143,26 +126,28 @@ public class VariableVerifier {
      * if there is an assignemnt it's valid, etc.
      *
      * @param declaration The variable declaration
+     * @param tokens      The tokens of the line holding the assigned value
      * @return The declared variable if the declaration is valid
      * @throws BaseVariableException Thrown if the declaration is illegal for reasons
      *                               described above.
      */
-    Variable verifyDeclaration(VariableDeclaration declaration) throws BaseVariableException {
+    Variable verifyDeclaration(VariableDeclaration declaration, TokenStream tokens) throws BaseVariableException {
         // Verify that the variable isn't a re-declaration of a variable in the
         // current scope
-        if (currentScope.isVariableInScope(declaration.getName())) {
+        if (currentScope.isVariableInScope(declaration.getSymbol())) {
             throw new VariableAlreadyExistsException();
         }
+        boolean hasAssignment = declaration.getAssignment() != VariableAssignment.NO_VALUE;
         // If we're final, we must have an assigned value
-        if (declaration.getFinal() && declaration.getAssignment() == null) {
+        if (declaration.getFinal() && !hasAssignment) {
             throw new MissingValueException();
         }
 
         // Verify the assignment, if there is one
-        if (declaration.getAssignment() != null) {
-            verifyVariableUsage(declaration.getType(), declaration.getAssignment());
+        if (hasAssignment) {
+            verifyVariableUsage(declaration.getType(), tokens, declaration.getAssignment());
         }
-        Variable declaredVariable = new Variable(declaration.getType(), declaration.getName(),
+        Variable declaredVariable = new Variable(declaration.getType(), declaration.getSymbol(),
                 declaration.getFinal());
         return declaredVariable;
     }
@@ -170,17 +155,16 @@ public class VariableVerifier {
     /**
      * A helper for verifying that a variable reference is valid
      *
-     * @param toType  what type we're trying to write/use
-     * @param varName what is the variable we're looking up
+     * @param toType    what type we're trying to write/use
+     * @param varSymbol the id of the variable we're looking up
      * @throws BadValueException           If the variable doesn't match the type
      * @throws UninitVariableReadException If the variable is uninitialized
      */
-    private void verifyReferenceAssignment(String toType, String varName) throws BadValueException,
+    private void verifyReferenceAssignment(Type toType, int varSymbol) throws BadValueException,
             UninitVariableReadException {
-        Variable readingFrom = ScopeHelpers.findRelevantVariable(varName, currentScope,
-                parentScope);
+        Variable readingFrom = currentScope.findVariable(varSymbol);
         if (readingFrom != null && readingFrom.isInitialized()) {
-            if (!isCastLegal(readingFrom.getType(), toType)) {
+            if (!toType.acceptsVariable(readingFrom.getType())) {
                 throw new BadValueException();
             }
         } else {
@@ -188,69 +172,13 @@ public class VariableVerifier {
         }
     }
 
-
-    /**
-     * Verify that a constant value matches a type, using the value regexes from
-     * the variable parser.
-     *
-     * @param typeName The type we're trying to write/use
-     * @param value    The value we're trying to "cast" to the passed type
-     * @throws BadValueException If the value doesn't match the type
-     */
-    private void verifyConstAssignment(String typeName, String value) throws BadValueException {
-        String verifyingPattern;
-        switch (typeName) {
-            case INT:
-                verifyingPattern = CommonPatterns.INTEGER_PATTERN;
-                break;
-            case DOUBLE:
-                verifyingPattern = CommonPatterns.DOUBLE_PATTERN;
-                break;
-            case STRING:
-                verifyingPattern = CommonPatterns.STRING_PATTERN;
-                break;
-            case BOOLEAN:
-                verifyingPattern = CommonPatterns.BOOLEAN_PATTERN;
-                break;
-            case CHAR:
-                verifyingPattern = CommonPatterns.CHAR_PATTERN;
-                break;
-            default:
-                return;
-        }
-        Matcher valueMatch = Pattern.compile("^" + verifyingPattern + "$").matcher(value);
-        if (!valueMatch.find()) {
-            throw new BadValueException();
-        }
-    }
-
-    /**
-     * Returns true if a cast from one type to another is legal,
-     * false otherwise
-     *
-     * @param fromType The type to cast from
-     * @param toType   The type we're casting to
-     * @return true if the cast is legal, false otherwise
-     */
-    private boolean isCastLegal(String fromType, String toType) {
-        if (fromType.equals(toType))
-            return true;
-        if (toType.equals(BOOLEAN) && (fromType.equals(DOUBLE) || fromType.equals(INT)))
-            return true;
-        if (toType.equals(DOUBLE) && fromType.equals(INT))
-            return true;
-        return false;
-    }
-
     /**
-     * Update the scopes used in the verifier. This is called by the main parser when entering or
+     * Update the scope used in the verifier. This is called by the main parser when entering or
      * exiting in a scope.
      *
-     * @param parentScope  The new parent scope
-     * @param currentScope The new local scope
+     * @param currentScope The new innermost scope
      */
-    public void updateScopes(VariableScope parentScope, VariableScope currentScope) {
-        this.parentScope = parentScope;
+    public void updateScope(VariableScope currentScope) {
         this.currentScope = currentScope;
     }
 